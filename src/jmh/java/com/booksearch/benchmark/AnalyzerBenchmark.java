@@ -0,0 +1,64 @@
+package com.booksearch.benchmark;
+
+import com.booksearch.model.Book;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SmartChineseAnalyzer 分词吞吐量，分别测量目录和内容简介两类长文本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"contents", "bookDescription"})
+    public String field;
+
+    private Analyzer analyzer;
+    private String[] texts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        analyzer = new SmartChineseAnalyzer();
+        List<Book> books = new SyntheticCorpus(11).books(500);
+        texts = books.stream()
+                .map(book -> field.equals("contents") ? book.getContents() : book.getBookDescription())
+                .toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        analyzer.close();
+    }
+
+    @State(Scope.Thread)
+    public static class TextCursor {
+        private int next;
+    }
+
+    @Benchmark
+    public void tokenize(TextCursor cursor, Blackhole blackhole) throws IOException {
+        String text = texts[cursor.next];
+        cursor.next = (cursor.next + 1) % texts.length;
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                blackhole.consume(term.length());
+            }
+            stream.end();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.booksearch.benchmark;
+
+import com.booksearch.indexer.BookIndexer;
+import com.booksearch.indexer.IndexerConfig;
+import com.booksearch.model.Book;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试用的临时索引目录
+ */
+class BenchmarkIndexes {
+
+    /**
+     * 在临时目录中用合成语料构建索引
+     * @param books 书籍数量
+     * @return 索引目录
+     */
+    static Path build(int books) throws IOException {
+        Path dir = Files.createTempDirectory("booksearch-bench");
+        IndexerConfig config = new IndexerConfig();
+        config.setIndexDir(dir.toString());
+        BookIndexer indexer = new BookIndexer(config);
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        for (int i = 0; i < books; i++) {
+            Book book = corpus.book(i);
+            indexer.indexBook(book);
+        }
+        indexer.close();
+        return dir;
+    }
+
+    /**
+     * 递归删除临时目录
+     */
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.booksearch.benchmark;
+
+import com.booksearch.indexer.BookIndexer;
+import com.booksearch.indexer.IndexerConfig;
+import com.booksearch.model.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BookIndexer.indexBook 吞吐量，每次调用写入一本 ISBN 不重复的书
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexBenchmark {
+
+    private static final int CORPUS_SIZE = 2000;
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private List<Book> corpus;
+    private Path indexDir;
+    private BookIndexer indexer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        corpus = new SyntheticCorpus(7).books(CORPUS_SIZE);
+        indexDir = Files.createTempDirectory("booksearch-index-bench");
+        IndexerConfig config = new IndexerConfig();
+        config.setIndexDir(indexDir.toString());
+        indexer = new BookIndexer(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        indexer.close();
+        BenchmarkIndexes.delete(indexDir);
+    }
+
+    @Benchmark
+    public void indexBook() throws Exception {
+        int id = nextId.getAndIncrement();
+        Book template = corpus.get(id % CORPUS_SIZE);
+        // 复制一份并替换 ISBN，避免 updateDocument 退化为删除旧文档
+        Book book = new Book(String.format("979%010d", id), template.getTitle(), template.getAuthor(),
+                template.getLanguage(), template.getPublisher(), template.getPublicationDate(),
+                template.getSalePrice(), template.getOriginalPrice(), template.getCategory(),
+                template.getContents(), template.getBookDescription(), template.getAuthorDescription(),
+                template.getEditorRecommendation());
+        indexer.indexBook(book);
+    }
+}
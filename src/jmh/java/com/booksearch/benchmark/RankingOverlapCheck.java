@@ -0,0 +1,82 @@
+package com.booksearch.benchmark;
+
+import com.booksearch.searcher.BookSearcher;
+import com.booksearch.searcher.SearchHit;
+import com.booksearch.searcher.SearcherConfig;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 合并字段与多字段两种查询方式的排序一致性检查
+ * 合并字段上的 BM25 长度归一化按整个 all 字段计算，很长的目录会压低标题命中的得分，
+ * 排序可能明显偏离按字段分别打分的 MULTI_FIELD；SearchBenchmark 只比较延迟，这里比较结果
+ * 在同一份合成语料索引上对 SyntheticCorpus.QUERIES 中的每个查询取两种方式的前 N 条，
+ * 以 ISBN 交集大小除以 N 作为重合率，平均重合率低于下限时以非零状态退出
+ */
+public class RankingOverlapCheck {
+
+    /**
+     * 用法:
+     *   RankingOverlapCheck [书籍数] [N] [最低平均重合率]   默认 20000 20 0.5
+     */
+    public static void main(String[] args) throws Exception {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double minOverlap = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+
+        Path indexDir = BenchmarkIndexes.build(books);
+        BookSearcher combined = null;
+        BookSearcher multiField = null;
+        double mean;
+        try {
+            combined = open(indexDir, SearcherConfig.QueryMode.COMBINED);
+            multiField = open(indexDir, SearcherConfig.QueryMode.MULTI_FIELD);
+            System.out.printf("%d 本书籍，前 %d 条结果的重合率（COMBINED 对 MULTI_FIELD）:\n", books, limit);
+            double sum = 0;
+            for (String query : SyntheticCorpus.QUERIES) {
+                Set<String> expected = isbns(multiField.searchHits(query, limit).getHits());
+                Set<String> actual = isbns(combined.searchHits(query, limit).getHits());
+                int size = Math.max(expected.size(), actual.size());
+                actual.retainAll(expected);
+                double overlap = size == 0 ? 1 : (double) actual.size() / size;
+                sum += overlap;
+                System.out.printf("  %-16s %5.2f\n", query, overlap);
+            }
+            mean = sum / SyntheticCorpus.QUERIES.length;
+        } finally {
+            if (combined != null) {
+                combined.close();
+            }
+            if (multiField != null) {
+                multiField.close();
+            }
+            BenchmarkIndexes.delete(indexDir);
+        }
+
+        System.out.printf("平均重合率 %.2f，下限 %.2f\n", mean, minOverlap);
+        if (mean < minOverlap) {
+            System.out.println("COMBINED 的排序与 MULTI_FIELD 偏差过大，请调整 BookFields.ALL_FIELD_WEIGHTS 或字段组成");
+            System.exit(1);
+        }
+    }
+
+    private static BookSearcher open(Path indexDir, SearcherConfig.QueryMode queryMode) throws Exception {
+        SearcherConfig config = new SearcherConfig();
+        config.setIndexDir(indexDir.toString());
+        config.setResultCacheSize(0);
+        config.setMaxStalenessMs(0);
+        config.setQueryMode(queryMode);
+        return new BookSearcher(config);
+    }
+
+    private static Set<String> isbns(List<SearchHit> hits) {
+        Set<String> isbns = new HashSet<>();
+        for (SearchHit hit : hits) {
+            isbns.add(hit.getIsbn());
+        }
+        return isbns;
+    }
+}
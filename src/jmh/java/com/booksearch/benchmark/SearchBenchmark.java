@@ -0,0 +1,68 @@
+package com.booksearch.benchmark;
+
+import com.booksearch.searcher.BookSearcher;
+import com.booksearch.searcher.SearchResult;
+import com.booksearch.searcher.SearcherConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookSearcher 查询延迟，轮流执行 SyntheticCorpus.QUERIES 中的查询
+ * 结果缓存关闭，测量的是解析、检索和摘要字段读取的完整开销
+ * queryMode 对比合并字段与多字段两种查询方式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"20000"})
+    public int books;
+
+    @Param({"20"})
+    public int limit;
+
+    @Param({"COMBINED", "MULTI_FIELD"})
+    public SearcherConfig.QueryMode queryMode;
+
+    private Path indexDir;
+    private BookSearcher searcher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        indexDir = BenchmarkIndexes.build(books);
+        SearcherConfig config = new SearcherConfig();
+        config.setIndexDir(indexDir.toString());
+        config.setResultCacheSize(0);
+        config.setMaxStalenessMs(0);
+        config.setQueryMode(queryMode);
+        searcher = new BookSearcher(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        searcher.close();
+        BenchmarkIndexes.delete(indexDir);
+    }
+
+    @State(Scope.Thread)
+    public static class QueryCursor {
+        private int next;
+
+        String nextQuery() {
+            String query = SyntheticCorpus.QUERIES[next];
+            next = (next + 1) % SyntheticCorpus.QUERIES.length;
+            return query;
+        }
+    }
+
+    @Benchmark
+    public SearchResult search(QueryCursor cursor) throws Exception {
+        return searcher.searchHits(cursor.nextQuery(), limit);
+    }
+}
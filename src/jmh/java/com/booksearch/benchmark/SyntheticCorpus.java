@@ -0,0 +1,94 @@
+package com.booksearch.benchmark;
+
+import com.booksearch.model.Book;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成中文图书语料，固定随机种子，基准测试无需联网或真实数据即可运行
+ */
+public class SyntheticCorpus {
+    private static final String[] WORDS = {
+            "中国", "历史", "文化", "经济", "社会", "科学", "技术", "计算机", "程序", "设计",
+            "算法", "数据", "网络", "人工智能", "机器", "学习", "文学", "小说", "诗歌", "艺术",
+            "哲学", "思想", "教育", "考试", "儿童", "故事", "生活", "旅行", "健康", "金融",
+            "投资", "管理", "市场", "城市", "自然", "宇宙", "物理", "化学", "生物", "医学",
+            "作者", "编辑", "出版", "研究", "理论", "实践", "方法", "发展", "世界", "时代",
+            "青年", "家庭", "教育", "语言", "翻译", "经典", "现代", "传统", "未来", "问题"
+    };
+    private static final String[] PUNCTUATION = {"，", "。", "、", "；"};
+    private static final String[] CATEGORIES = {
+            "人文社科", "文学艺术", "少儿童书", "教育考试", "经济金融", "生活休闲", "科学技术", "计算机类", "外文原版"
+    };
+
+    /**
+     * 代表性查询：单字、常见词、多词组合和作者名
+     */
+    public static final String[] QUERIES = {
+            "历史", "计算机 程序", "人工智能", "中国 文化", "小说", "经济 管理 投资",
+            "的", "儿童 故事", "宇宙 物理", "作者3", "数据 算法 设计", "现代 文学"
+    };
+
+    private final Random random;
+
+    public SyntheticCorpus(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 生成一段由词表随机组合的中文文本
+     * @param words 词数
+     * @return 文本
+     */
+    public String text(int words) {
+        StringBuilder sb = new StringBuilder(words * 3);
+        for (int i = 0; i < words; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(6) == 0) {
+                sb.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            } else if (random.nextInt(4) == 0) {
+                sb.append("的");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 生成一本字段齐全的书，长文本字段长度与真实数据相近
+     * @param id 序号，用于生成唯一 ISBN
+     * @return Book
+     */
+    public Book book(int id) {
+        Book book = new Book();
+        book.setIsbn(String.format("978%010d", id));
+        book.setTitle(text(3 + random.nextInt(5)));
+        book.setAuthor("作者" + random.nextInt(500));
+        book.setLanguage("中文");
+        book.setPublisher("出版社" + random.nextInt(50));
+        book.setPublicationDate(LocalDate.of(1990, 1, 1).plusDays(random.nextInt(365 * 35)));
+        book.setSalePrice(5 + random.nextInt(20000) / 100.0);
+        book.setOriginalPrice(book.getSalePrice() * 1.25);
+        book.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        book.setContents(text(300 + random.nextInt(700)));
+        book.setBookDescription(text(100 + random.nextInt(200)));
+        book.setAuthorDescription(text(30 + random.nextInt(60)));
+        book.setEditorRecommendation(text(50 + random.nextInt(100)));
+        return book;
+    }
+
+    /**
+     * 生成指定数量的书
+     * @param count 数量
+     * @return Book 列表
+     */
+    public List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(book(i));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,228 @@
+package com.booksearch.cli;
+
+import com.booksearch.searcher.BookSearcher;
+import com.booksearch.searcher.SearchHit;
+import com.booksearch.searcher.SearchResult;
+import com.booksearch.searcher.SearcherConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * 批量查询：从文件或标准输入逐行读取查询，在共享的 BookSearcher 上并行执行，以 JSON Lines 输出结果
+ * 每行输出 {"query", "totalHits", "isbns", "scores", "latencyMicros"}，部分结果另有 "partial": true，失败时为 {"query", "error"}
+ * 默认按输入顺序输出，--unordered 时按完成顺序输出；在途查询数受窗口限制
+ */
+public class BatchSearchApp {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final BookSearcher searcher;
+    private final int threads;
+    private final int limit;
+    private final boolean ordered;
+    private final AtomicLong failed = new AtomicLong();
+
+    // 按输入顺序输出时，已完成但前面还有未完成查询的结果
+    private final Map<Long, String> completed = new HashMap<>();
+    private long nextToWrite = 0;
+    private volatile IOException writeError;
+
+    /**
+     * @param searcher 共享的搜索器
+     * @param threads 并行执行查询的线程数
+     * @param limit 每个查询返回的命中数
+     * @param ordered true 按输入顺序输出，false 按完成顺序输出
+     */
+    public BatchSearchApp(BookSearcher searcher, int threads, int limit, boolean ordered) {
+        this.searcher = searcher;
+        this.threads = threads;
+        this.limit = limit;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 执行全部查询，阻塞直到所有结果写出
+     * @param input 每行一个查询，空行忽略
+     * @param output JSONL 输出
+     * @return 执行的查询数
+     */
+    public long run(BufferedReader input, Writer output) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int window = threads * 64;
+        Semaphore inFlight = new Semaphore(window);
+        long submitted = 0;
+        try {
+            String line;
+            // 输出失败后不再提交新的查询
+            while (writeError == null && (line = input.readLine()) != null) {
+                String query = line.trim();
+                if (query.isEmpty()) {
+                    continue;
+                }
+                inFlight.acquire();
+                long seq = submitted++;
+                // 按输入顺序时结果写出后才归还许可，等待前面慢查询的结果也计入窗口
+                pool.execute(() -> inFlight.release(emit(seq, execute(query), output)));
+            }
+            // 取回全部许可即表示所有查询已完成并写出
+            inFlight.acquire(window);
+            if (writeError != null) {
+                throw writeError;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量查询被中断", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        output.flush();
+        if (failed.get() > 0) {
+            System.err.println("其中 " + failed.get() + " 个查询失败");
+        }
+        return submitted;
+    }
+
+    /**
+     * 执行单个查询并序列化为一行 JSON
+     */
+    private String execute(String query) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("query", query);
+        long start = System.nanoTime();
+        try {
+            SearchResult result = searcher.searchHits(query, limit);
+            List<String> isbns = new ArrayList<>(result.getHits().size());
+            List<Float> scores = new ArrayList<>(result.getHits().size());
+            for (SearchHit hit : result.getHits()) {
+                isbns.add(hit.getIsbn());
+                scores.add(hit.getScore());
+            }
+            record.put("totalHits", result.getTotalHits());
+            record.put("isbns", isbns);
+            record.put("scores", scores);
+            record.put("latencyMicros", (System.nanoTime() - start) / 1000);
+            if (result.isPartial()) {
+                record.put("partial", true);
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            record.put("error", String.valueOf(e.getMessage()));
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            failed.incrementAndGet();
+            return "{\"error\":\"无法序列化查询结果\"}";
+        }
+    }
+
+    /**
+     * 写出一条结果；按输入顺序时连同其后已完成的结果一起写出
+     * @return 应归还的许可数，即本次写出或丢弃的结果数
+     */
+    private synchronized int emit(long seq, String json, Writer output) {
+        if (writeError != null) {
+            return 1;
+        }
+        if (ordered) {
+            completed.put(seq, json);
+        }
+        // 暂存的结果各占一个许可，写出失败时一并归还
+        int pending = ordered ? completed.size() : 1;
+        try {
+            if (!ordered) {
+                output.write(json);
+                output.write('\n');
+                return 1;
+            }
+            int written = 0;
+            String next;
+            while ((next = completed.remove(nextToWrite)) != null) {
+                output.write(next);
+                output.write('\n');
+                nextToWrite++;
+                written++;
+            }
+            return written;
+        } catch (IOException e) {
+            writeError = e;
+            completed.clear();
+            return pending;
+        }
+    }
+
+    /**
+     * 用法: BatchSearchApp [--input=文件|-] [--output=文件|-] [--threads=N] [--limit=N] [--unordered]
+     * 默认从标准输入读取、向标准输出写入，线程数为 CPU 核数，每个查询返回 MAX_SEARCH_RESULTS 条
+     * 统计信息输出到标准错误，不混入结果
+     */
+    public static void main(String[] args) {
+        String inputPath = "-";
+        String outputPath = "-";
+        int threads = Runtime.getRuntime().availableProcessors();
+        int limit = MAX_SEARCH_RESULTS;
+        boolean ordered = true;
+        for (String arg : args) {
+            if (arg.startsWith("--input=")) {
+                inputPath = arg.substring("--input=".length());
+            } else if (arg.startsWith("--output=")) {
+                outputPath = arg.substring("--output=".length());
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--limit=")) {
+                limit = Integer.parseInt(arg.substring("--limit=".length()));
+            } else if (arg.equals("--unordered")) {
+                ordered = false;
+            }
+        }
+
+        PrintStream stdout = System.out;
+
+        // 批量查询的结果缓存命中率低，索引也不会变化，关闭缓存与后台刷新
+        SearcherConfig config = new SearcherConfig();
+        config.setResultCacheSize(0);
+        config.setMaxStalenessMs(0);
+        try (BufferedReader input = inputPath.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                     : Files.newBufferedReader(Paths.get(inputPath), StandardCharsets.UTF_8);
+             Writer output = outputPath.equals("-")
+                     ? new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8), 1 << 16)
+                     : Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+            BookSearcher searcher = new BookSearcher(config);
+            try {
+                long start = System.nanoTime();
+                long total = new BatchSearchApp(searcher, threads, limit, ordered).run(input, output);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.err.printf("共执行 %d 个查询，线程数 %d，耗时 %.2f 秒，吞吐量 %.0f 查询/秒\n",
+                        total, threads, seconds, total / Math.max(seconds, 0.001));
+                System.err.println(searcher.getMetrics());
+            } finally {
+                searcher.close();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("批量查询失败：" + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.booksearch.cli;
 
 import com.booksearch.searcher.BookSearcher;
+import com.booksearch.searcher.SearchResult;
+import com.booksearch.searcher.SearcherBootstrap;
+import com.booksearch.searcher.SearcherConfig;
 import com.booksearch.model.Book;
 
 import java.io.IOException;
@@ -13,18 +16,31 @@ import java.util.Scanner;
 public class ClientApp {
 
     private static BookSearcher searcher;
+    private static SearcherBootstrap bootstrap;
+    private static long startNanos;
+    private static boolean firstQuery = true;
     private static final String SEPARATOR = "----------------------------------------";
 
     /**
      * 程序入口
+     * 用法: ClientApp [--fast-start]
+     * --fast-start 时在后台并行打开索引、加载分词词典并预热，提示符立即出现，首个查询等待初始化完成
      */
     public static void main(String[] args) {
+        startNanos = System.nanoTime();
         System.out.println("启动图书搜索客户端...");
 
         try {
-            // 尝试初始化搜索器
-            searcher = new BookSearcher();
-            System.out.println("搜索引擎初始化成功！索引已加载");
+            if (args.length > 0 && args[0].equals("--fast-start")) {
+                SearcherConfig config = new SearcherConfig();
+                config.setPreload(true);
+                bootstrap = SearcherBootstrap.start(config);
+                System.out.println("搜索引擎正在后台初始化，可以直接输入关键词");
+            } else {
+                // 尝试初始化搜索器
+                searcher = new BookSearcher();
+                System.out.println("搜索引擎初始化成功！索引已加载");
+            }
             startInteractiveLoop();
 
         } catch (IOException e) {
@@ -82,7 +98,11 @@ public class ClientApp {
             }
             Book book = null;
             if (results != null) {
-                book = results.get(index);
+                // 搜索结果只含摘要字段，详情按 ISBN 从索引读取
+                book = searcher.findByIsbn(results.get(index).getIsbn());
+            }
+            if (book == null) {
+                continue;
             }
             System.out.println(SEPARATOR);
             System.out.printf("%s\n", book.getTitle());
@@ -102,6 +122,9 @@ public class ClientApp {
             System.out.printf("    编辑推荐：%s\n", book.getEditorRecommendation());
             System.out.println(SEPARATOR);
         }
+        if (searcher == null && bootstrap != null) {
+            searcher = bootstrap.await();
+        }
         searcher.close();
         scanner.close();
     }
@@ -116,7 +139,20 @@ public class ClientApp {
         System.out.printf("正在搜索: \"%s\"...\n", query);
 
         try {
-            List<Book> results = searcher.search(query, com.booksearch.util.Constants.MAX_SEARCH_RESULTS);
+            if (searcher == null) {
+                searcher = bootstrap.await();
+                System.out.printf("搜索引擎已就绪，初始化与预热耗时 %d ms\n", bootstrap.getStartupMillis());
+            }
+            SearchResult result = searcher.searchHits(query, com.booksearch.util.Constants.MAX_SEARCH_RESULTS);
+            if (firstQuery) {
+                firstQuery = false;
+                System.out.printf("首个查询完成，距启动 %d ms\n", (System.nanoTime() - startNanos) / 1_000_000);
+            }
+            System.out.printf("找到 %d 个匹配项\n", result.getTotalHits());
+            if (result.isPartial()) {
+                System.out.println("查询超出时间预算，以下为部分结果");
+            }
+            List<Book> results = result.getBooks();
             if (results.isEmpty()) {
                 System.out.println("未找到匹配图书,请尝试其他关键词");
                 return null;
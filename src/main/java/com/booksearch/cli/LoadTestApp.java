@@ -0,0 +1,258 @@
+package com.booksearch.cli;
+
+import com.booksearch.metrics.Histogram;
+import com.booksearch.searcher.BookSearcher;
+import com.booksearch.searcher.SearcherConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * 回放查询日志的压测工具，按目标 QPS 以开环方式发送请求，延迟从计划发送时间算起
+ * 满足所有 SLO 时退出码为 0，任一 SLO 不满足时为 1，参数或初始化错误时为 2
+ */
+public class LoadTestApp {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @FunctionalInterface
+    private interface Target {
+        /**
+         * 执行一个查询，失败时抛出异常
+         */
+        void search(String query) throws Exception;
+    }
+
+    private final Target target;
+    private final ExecutorService executor;
+    private final Histogram latency = new Histogram();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    // 等待超时后置位，之后完成的请求不再计入统计，按未完成计为错误
+    private volatile boolean stopped;
+
+    private LoadTestApp(Target target, ExecutorService executor) {
+        this.target = target;
+        this.executor = executor;
+    }
+
+    /**
+     * 按开环模型发送请求
+     * @param queries 查询日志，循环使用
+     * @param qps 目标每秒请求数
+     * @param warmupSeconds 预热时长，期间的请求不计入统计
+     * @param durationSeconds 计入统计的压测时长
+     * @return 计入统计的已发送请求数
+     */
+    private long run(List<String> queries, double qps, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        long intervalNanos = (long) (1e9 / qps);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long sent = 0;
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String query = queries.get((int) (i % queries.size()));
+            boolean measured = intended >= measureFrom;
+            if (measured) {
+                sent++;
+            }
+            executor.execute(() -> {
+                boolean ok;
+                try {
+                    target.search(query);
+                    ok = true;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                if (measured && !stopped) {
+                    latency.record(System.nanoTime() - intended);
+                    completed.incrementAndGet();
+                    if (!ok) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        // 等待在途请求，超时未完成的计为错误
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            System.err.println("仍有请求在 30 秒内未完成，按错误计");
+            stopped = true;
+            executor.shutdownNow();
+        }
+        return sent;
+    }
+
+    /**
+     * 读取查询日志：每行一个查询，或 BatchSearchApp 输出的 JSONL（取 query 字段）
+     */
+    private static List<String> loadQueries(String path) throws IOException {
+        List<String> queries = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+            String query = line.trim();
+            if (query.startsWith("{")) {
+                JsonNode node = OBJECT_MAPPER.readTree(query).get("query");
+                query = node == null ? "" : node.asText().trim();
+            }
+            if (!query.isEmpty()) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+
+    private static Target httpTarget(String baseUrl, int limit) {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String prefix = baseUrl.replaceAll("/+$", "") + "/search?limit=" + limit + "&q=";
+        return query -> {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(prefix + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+        };
+    }
+
+    /**
+     * 用法: LoadTestApp --log=查询日志 [--qps=100] [--duration=60] [--warmup=10] [--target=inprocess|http://host:port]
+     *                  [--threads=N] [--limit=N] [--no-cache] [--slo-p99-ms=N] [--slo-p999-ms=N] [--slo-error-rate=0.001]
+     * --threads 为进程内目标的检索线程数，默认与 SearchServer 相同；--no-cache 关闭进程内搜索器的结果缓存
+     */
+    public static void main(String[] args) {
+        String logPath = null;
+        String targetName = "inprocess";
+        double qps = 100;
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        int threads = SERVER_SEARCH_THREADS;
+        int limit = MAX_SEARCH_RESULTS;
+        boolean cache = true;
+        double sloP99Ms = -1;
+        double sloP999Ms = -1;
+        double sloErrorRate = -1;
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--log=")) logPath = value;
+            else if (arg.startsWith("--target=")) targetName = value;
+            else if (arg.startsWith("--qps=")) qps = Double.parseDouble(value);
+            else if (arg.startsWith("--duration=")) durationSeconds = Integer.parseInt(value);
+            else if (arg.startsWith("--warmup=")) warmupSeconds = Integer.parseInt(value);
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(value);
+            else if (arg.startsWith("--limit=")) limit = Integer.parseInt(value);
+            else if (arg.equals("--no-cache")) cache = false;
+            else if (arg.startsWith("--slo-p99-ms=")) sloP99Ms = Double.parseDouble(value);
+            else if (arg.startsWith("--slo-p999-ms=")) sloP999Ms = Double.parseDouble(value);
+            else if (arg.startsWith("--slo-error-rate=")) sloErrorRate = Double.parseDouble(value);
+        }
+        if (logPath == null || qps <= 0) {
+            System.err.println("必须指定 --log=查询日志，且 --qps 大于 0");
+            System.exit(2);
+        }
+
+        BookSearcher searcher = null;
+        try {
+            List<String> queries = loadQueries(logPath);
+            if (queries.isEmpty()) {
+                System.err.println("查询日志为空：" + logPath);
+                System.exit(2);
+            }
+
+            LoadTestApp app;
+            if (targetName.equals("inprocess")) {
+                SearcherConfig config = new SearcherConfig();
+                if (!cache) {
+                    config.setResultCacheSize(0);
+                }
+                searcher = new BookSearcher(config);
+                BookSearcher shared = searcher;
+                int queryLimit = limit;
+                // 与 SearchServer 一样在固定大小的平台线程池上检索，线程忙时请求排队，排队时间计入延迟
+                app = new LoadTestApp(query -> shared.searchHits(query, queryLimit), Executors.newFixedThreadPool(threads));
+            } else {
+                app = new LoadTestApp(httpTarget(targetName, limit), Executors.newVirtualThreadPerTaskExecutor());
+            }
+
+            System.out.printf("回放 %d 条查询，目标 %s，%.0f QPS，预热 %d 秒，压测 %d 秒\n",
+                    queries.size(), targetName, qps, warmupSeconds, durationSeconds);
+            long sent = app.run(queries, qps, warmupSeconds, durationSeconds);
+            boolean passed = app.report(sent, durationSeconds, sloP99Ms, sloP999Ms, sloErrorRate);
+            if (searcher != null) {
+                searcher.close();
+            }
+            System.exit(passed ? 0 : 1);
+        } catch (IOException e) {
+            System.err.println("压测初始化失败：" + e.getMessage());
+            System.exit(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("压测被中断");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * 输出统计并检查 SLO
+     * @return 所有已配置的 SLO 都满足时返回 true
+     */
+    private boolean report(long sent, int durationSeconds, double sloP99Ms, double sloP999Ms, double sloErrorRate) {
+        long done = completed.get();
+        long failed = errors.get() + (sent - done);
+        double errorRate = sent == 0 ? 0 : (double) failed / sent;
+        double p50 = latency.getPercentile(0.50) / 1e6;
+        double p99 = latency.getPercentile(0.99) / 1e6;
+        double p999 = latency.getPercentile(0.999) / 1e6;
+
+        System.out.printf("发送 %d，完成 %d，错误 %d（%.3f%%），吞吐量 %.1f 请求/秒\n",
+                sent, done, failed, errorRate * 100, (done - errors.get()) / (double) durationSeconds);
+        System.out.printf("延迟 ms（自计划发送时间起）: p50 %.2f，p90 %.2f，p99 %.2f，p99.9 %.2f，max %.2f\n",
+                p50, latency.getPercentile(0.90) / 1e6, p99, p999, latency.getMax() / 1e6);
+
+        boolean passed = true;
+        if (sloP99Ms >= 0 && p99 > sloP99Ms) {
+            System.out.printf("SLO 未满足：p99 %.2f ms > %.2f ms\n", p99, sloP99Ms);
+            passed = false;
+        }
+        if (sloP999Ms >= 0 && p999 > sloP999Ms) {
+            System.out.printf("SLO 未满足：p99.9 %.2f ms > %.2f ms\n", p999, sloP999Ms);
+            passed = false;
+        }
+        if (sloErrorRate >= 0 && errorRate > sloErrorRate) {
+            System.out.printf("SLO 未满足：错误率 %.4f > %.4f\n", errorRate, sloErrorRate);
+            passed = false;
+        }
+        System.out.println(passed ? "所有 SLO 均满足" : "压测未通过");
+        return passed;
+    }
+}
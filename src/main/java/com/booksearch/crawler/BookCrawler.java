@@ -1,6 +1,11 @@
 package com.booksearch.crawler;
 
+import com.booksearch.indexer.BookIndexer;
+import com.booksearch.indexer.BookSink;
+import com.booksearch.indexer.IndexerConfig;
+import com.booksearch.indexer.ShardedBookIndexer;
 import com.booksearch.model.Book;
+import com.booksearch.util.BookJsonWriter;
 import static com.booksearch.util.BookSerializer.*;
 import static com.booksearch.util.Constants.*;
 import static com.booksearch.util.PrintProgressBar.printProgressBar;
@@ -13,33 +18,43 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 public class BookCrawler {
     private static final Gson GSON = new Gson();
     private static final String BASE_URL = "https:";
+    private static FetchEngine fetchEngine = new FetchEngine();
 
     private static class DetailItem {
         String title;
         String content;
     }
 
+    private static final Type DETAIL_LIST_TYPE = new TypeToken<List<DetailItem>>() {}.getType();
+    private static final Set<String> DETAIL_TITLES = Set.of("内容简介", "作者简介", "编辑推荐", "目录");
+
+    /**
+     * 替换抓取引擎，例如调整并发与限流参数，或在测试中指向本地服务器
+     * @param engine 抓取引擎
+     */
+    public static void setFetchEngine(FetchEngine engine) {
+        fetchEngine = engine;
+    }
+
     /**
      * 抓取网页 html 文档
      * @param url 要抓取的网页 url
-     * @return 抓取得到的 html 文档
+     * @return 抓取得到的 html 文档，失败时返回 null
      */
     private static Document getDoc(String url) {
-        Document doc = null;
-        try {
-            doc = Jsoup.connect(url).timeout(10000).get();
-        }
-        catch (Exception e) {
-            System.err.println("爬取失败：" + e.getMessage());
-        }
-        return doc;
+        return fetchEngine.fetch(url);
     }
 
     /**
@@ -133,77 +148,59 @@ public class BookCrawler {
         return tableData;
     }
 
-    private static String extractAndCleanContent(Document doc, String targetTitle) {
+    /**
+     * 从 html 中一次性提取内容简介、作者简介、编辑推荐和目录
+     * data-detail 属性的 JSON 只解析一次，只有需要的片段才做 HTML 清理
+     * @param doc html 文档
+     * @return 标题 -> 清理后的文本，缺失的部分不在结果中
+     */
+    private static Map<String, String> extractDetailSections(Document doc) {
+        Map<String, String> sections = new HashMap<>();
         // 定位包含 data-detail 的元素
         Element detailDiv = doc.selectFirst("div.spu-tab-item-detail");
         if (detailDiv == null || !detailDiv.hasAttr("data-detail")) {
-            return "<UNK>";
+            return sections;
         }
 
         String dataDetailJson = detailDiv.attr("data-detail");
         try {
-            Type listType = new TypeToken<List<DetailItem>>() {}.getType();
-            List<DetailItem> details = GSON.fromJson(dataDetailJson, listType);
+            List<DetailItem> details = GSON.fromJson(dataDetailJson, DETAIL_LIST_TYPE);
             if (details == null) {
-                return "<UNK>";
+                return sections;
             }
             for (DetailItem item : details) {
-                if (targetTitle.equals(item.title) && item.content != null) {
+                if (item.title != null && item.content != null
+                        && DETAIL_TITLES.contains(item.title) && !sections.containsKey(item.title)) {
                     // 将 content 视为新的 HTML 片段，使用 Jsoup 进行解析和清理
-                    return Jsoup.parse(item.content).text();
+                    sections.put(item.title, Jsoup.parseBodyFragment(item.content).text());
                 }
             }
         } catch (Exception e) {
             System.err.println("解析 data-detail 属性时出错：" + e.getMessage());
-            return "<UNK>";
         }
-        return "<UNK>";
+        return sections;
     }
 
     /**
-     * 从 html 中提取内容简介
-     * @param doc html 文档
-     * @return 图书内容简介
-     */
-    private static String extractContentSummary(Document doc) {
-        return extractAndCleanContent(doc, "内容简介");
-    }
-
-    /**
-     * 从 html 中提取作者简介
-     * @param doc html 文档
-     * @return 作者简介内容
-     */
-    private static String extractAuthorIntroduction(Document doc) {
-        return extractAndCleanContent(doc, "作者简介");
-    }
-
-    /**
-     * 从 html 中提取编辑推荐
-     * @param doc html 文档
-     * @return 编辑推荐内容
-     */
-    private static String extractEditorRecommendation(Document doc) {
-        return extractAndCleanContent(doc, "编辑推荐");
-    }
-
-    /**
-     * 从 html 中提取目录
-     * @param doc html 文档
-     * @return 目录
+     * 从 url 爬取图书信息
+     * @param url 要爬取的图书页面链接
+     * @return 图书结构体，页面抓取失败时返回 null
      */
-    private static String extractContents(Document doc) {
-        return extractAndCleanContent(doc, "目录");
+    public static Book getBook(String url) {
+        Document doc = getDoc(url);
+        if (doc == null) {
+            return null;
+        }
+        return extractBook(doc);
     }
 
     /**
-     * 从 url 爬取图书信息
-     * @param url 要爬取的图书页面链接
+     * 从已抓取的图书详情页中提取图书信息，不访问网络
+     * @param doc 图书详情页 html 文档
      * @return 图书结构体
      */
-    public static Book getBook(String url) {
+    public static Book extractBook(Document doc) {
         Book book = new Book();
-        Document doc = getDoc(url);
         book.setTitle(extractTitle(doc));
         book.setCategory(extractCategory(doc));
         book.setSalePrice(extractSalePrice(doc));
@@ -229,35 +226,55 @@ public class BookCrawler {
                 case "正文语种" -> book.setLanguage(entry.getValue());
             }
         }
-        book.setBookDescription(extractContentSummary(doc));
-        book.setAuthorDescription(extractAuthorIntroduction(doc));
-        book.setEditorRecommendation(extractEditorRecommendation(doc));
-        book.setContents(extractContents(doc));
+        Map<String, String> sections = extractDetailSections(doc);
+        book.setBookDescription(sections.getOrDefault("内容简介", "<UNK>"));
+        book.setAuthorDescription(sections.getOrDefault("作者简介", "<UNK>"));
+        book.setEditorRecommendation(sections.getOrDefault("编辑推荐", "<UNK>"));
+        book.setContents(sections.getOrDefault("目录", "<UNK>"));
 
         return book;
     }
 
     /**
-     * 从 url 列表爬取一系列图书信息
+     * 从 url 列表并发爬取一系列图书信息
      * @param urlList 要爬取的图书页面链接列表
-     * @return 图书结构体列表
+     * @return 图书结构体列表，顺序与 urlList 一致，抓取失败的页面被跳过
      */
     public static List<Book> getBooks(List<String> urlList) {
+        Map<String, Book> fetched = new ConcurrentHashMap<>();
+        fetchBooks(urlList, fetched::put);
         List<Book> books = new ArrayList<>();
-        int total = urlList.size();
-
-        for (int i = 0; i < total; i++) {
-            String url = urlList.get(i);
-            Book book = getBook(url);
-            books.add(book);
-            printProgressBar(i+1, total);
+        for (String url : urlList) {
+            Book book = fetched.get(url);
+            if (book != null) {
+                books.add(book);
+            }
         }
-        System.out.println();
         return books;
     }
 
+    /**
+     * 并发爬取图书，每完成一本立即交给 consumer 处理
+     * @param urlList 要爬取的图书页面链接列表
+     * @param consumer 图书处理函数，参数为图书 url 与图书，会被多个线程并发调用；抛出的异常终止爬取并向上传播
+     */
+    private static void fetchBooks(List<String> urlList, BiConsumer<String, Book> consumer) {
+        int total = urlList.size();
+        AtomicInteger completed = new AtomicInteger();
+        fetchEngine.forEach(urlList, url -> {
+            Book book = getBook(url);
+            if (book != null) {
+                consumer.accept(url, book);
+            }
+            synchronized (BookCrawler.class) {
+                printProgressBar(completed.incrementAndGet(), total);
+            }
+        });
+    }
+
     /**
      * 从分类页面提取出图书 url，并控制爬取的页数
+     * 列表页按批并发抓取，每批的页数为单个主机的并发上限；遇到第一个空页面后停止，不再抓取后续批次
      * @param url 分类页面的基础 url
      * @param maxPages 最大爬取页数
      * @return 图书 url 列表
@@ -268,60 +285,200 @@ public class BookCrawler {
             return urls;
         }
 
-        for (int pageNo = 1; pageNo <= maxPages; pageNo++) {
-            String currentUrl;
-            if (pageNo == 1) {
-                currentUrl = url;
-            } else {
-                currentUrl = url + "&pageNo=" + pageNo;
+        for (int first = 1; first <= maxPages; first += CRAWL_MAX_PER_HOST) {
+            int last = Math.min(maxPages, first + CRAWL_MAX_PER_HOST - 1);
+            List<String> pageUrls = new ArrayList<>();
+            for (int pageNo = first; pageNo <= last; pageNo++) {
+                pageUrls.add(pageNo == 1 ? url : url + "&pageNo=" + pageNo);
             }
+            Map<String, Document> docs = new ConcurrentHashMap<>();
+            fetchEngine.forEach(pageUrls, pageUrl -> {
+                Document doc = getDoc(pageUrl);
+                if (doc != null) {
+                    docs.put(pageUrl, doc);
+                }
+            });
+            for (String pageUrl : pageUrls) {
+                Document doc = docs.get(pageUrl);
+                if (doc == null) {
+                    continue;
+                }
+                if (!addProductUrls(doc, urls)) {
+                    return urls;
+                }
+            }
+        }
+        return urls;
+    }
 
-            Document doc = getDoc(currentUrl);
-            if (doc == null) {
-                continue;
+    /**
+     * 提取列表页中的图书链接
+     * @return 列表页为空时返回 false
+     */
+    private static boolean addProductUrls(Document doc, List<String> urls) {
+        Elements productElements = doc.select("ul.shop-search-items-img-type li.product");
+        if (productElements.isEmpty()) {
+            return false;
+        }
+        for (Element productElement : productElements) {
+            Element link = productElement.selectFirst(".product-image a");
+            if (link != null) {
+                String relativeUrl = link.attr("href");
+                if (relativeUrl.startsWith("//")) {
+                    relativeUrl = BASE_URL + relativeUrl;
+                }
+                urls.add(relativeUrl);
             }
+        }
+        return true;
+    }
 
-            Elements productElements = doc.select("ul.shop-search-items-img-type li.product");
-            if (productElements.isEmpty()) {
-                return urls;
+    /**
+     * 用法: BookCrawler [--resume] [--replay | --no-cache] [--index] [--shards=N]
+     * 默认把爬取结果写入 books.json；--index 时经 CrawlPipeline 边爬取边写入索引，不生成中间文件
+     * 爬取进度持续写入 CRAWL_STATE_DIR，--resume 时跳过已发现的列表页和已完成的图书，只抓取剩余部分
+     * 抓取的页面缓存在 CRAWL_CACHE_DIR；--replay 只从缓存读取、不访问网络，--no-cache 关闭缓存
+     */
+    public static void main(String[] args) {
+        boolean index = false;
+        boolean resume = false;
+        boolean replay = false;
+        boolean useCache = true;
+        IndexerConfig config = new IndexerConfig();
+        for (String arg : args) {
+            if (arg.equals("--index")) {
+                index = true;
+            } else if (arg.equals("--resume")) {
+                resume = true;
+            } else if (arg.equals("--replay")) {
+                replay = true;
+            } else if (arg.equals("--no-cache")) {
+                useCache = false;
+            } else if (arg.startsWith("--shards=")) {
+                config.setShards(Integer.parseInt(arg.substring("--shards=".length())));
             }
-            for (Element productElement : productElements) {
-                Element link = productElement.selectFirst(".product-image a");
-                if (link != null) {
-                    String relativeUrl = link.attr("href");
-                    if (relativeUrl.startsWith("//")) {
-                        relativeUrl = BASE_URL + relativeUrl;
-                    }
-                    urls.add(relativeUrl);
+        }
+
+        try {
+            if (useCache || replay) {
+                ResponseCache cache = new ResponseCache(Paths.get(CRAWL_CACHE_DIR), CRAWL_CACHE_TTL_MS);
+                setFetchEngine(new FetchEngine().useCache(cache, replay));
+                if (replay) {
+                    System.out.println("回放模式：只从 " + CRAWL_CACHE_DIR + " 读取页面，不访问网络");
                 }
             }
+        } catch (IOException e) {
+            System.out.println("无法打开响应缓存" + e);
+            return;
+        }
+
+        try (CrawlFrontier frontier = new CrawlFrontier(Paths.get(CRAWL_STATE_DIR), resume,
+                CRAWL_CHECKPOINT_EVERY, CRAWL_CHECKPOINT_INTERVAL_MS)) {
+            if (frontier.hasUrls()) {
+                System.out.println("从检查点恢复，共 " + frontier.size() + " 条图书 url");
+            } else {
+                List<String> totalUrlList = discoverUrls();
+                int unique = frontier.setUrls(totalUrlList);
+                System.out.println("\n共爬取到图书 url " + totalUrlList.size() + " 条，规范化去重后 " + unique + " 条");
+            }
+            List<String> pending = frontier.pending();
+            System.out.println("待爬取 " + pending.size() + " 条，已完成 " + (frontier.size() - pending.size()) + " 条");
+
+            if (index) {
+                crawlIntoIndex(frontier, pending, config, resume);
+            } else {
+                crawlIntoFile(frontier, pending);
+            }
+            int missing = frontier.pending().size();
+            if (missing > 0) {
+                System.out.println("仍有 " + missing + " 条图书 url 爬取失败，可使用 --resume 重试");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("爬取过程失败" + e);
         }
-        return urls;
     }
 
-    public static void main(String[] args) {
+    /**
+     * 依次爬取各类别的列表页，得到全部图书 url
+     */
+    private static List<String> discoverUrls() {
         List<String> totalUrlList = new ArrayList<>();
         for (Map.Entry<String, String> entry : CATEGORIES.entrySet()) {
             String categoryName = entry.getKey();
             String categoryId = entry.getValue();
-            String currentUrl = "https://search.xhsd.com/search?frontCategoryId=" + categoryId;
+            String currentUrl = SEARCH_URL + categoryId;
 
             System.out.println("\n正在爬取 " + categoryName + " 类图书 url...");
             List<String> currentUrlList = getURLs(currentUrl, MAX_PAGES);
             System.out.println("爬取到 " + categoryName + " 类图书 url 共 " + currentUrlList.size() + " 条");
             totalUrlList.addAll(currentUrlList);
         }
+        return totalUrlList;
+    }
 
-        System.out.println("\n正在爬取图书信息...");
-        List<Book> books = getBooks(totalUrlList);
-        System.out.println("爬取到图书信息共 " + books.size() + " 本");
+    /**
+     * 爬取剩余图书并写入检查点，结束后由检查点生成 books.json
+     * 每爬取一本立即追加到检查点文件，内存中不保留完整的图书列表
+     */
+    private static void crawlIntoFile(CrawlFrontier frontier, List<String> pending) throws IOException {
+        System.out.println("\n正在爬取图书信息 ...");
+        fetchBooks(pending, (url, book) -> {
+            try {
+                frontier.complete(url, book);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
 
-        try {
-            System.out.println("\n正在写入文件 " + FILE_PATH + " ...");
-            serializeAll(books, new File(FILE_PATH));
-            System.out.println("共写入 " + books.size() + " 本图书信息到 " + FILE_PATH);
-        } catch (IOException e) {
-            System.out.println("文件写入异常" + e);
+        System.out.println("\n正在写入文件 " + FILE_PATH + " ...");
+        // 不同 url 可能指向同一本书，按 ISBN 只保留第一次出现的
+        Set<String> written = new HashSet<>();
+        try (BookJsonWriter writer = openWriter(new File(FILE_PATH))) {
+            frontier.forEachBook(book -> {
+                if (written.add(book.getIsbn())) {
+                    try {
+                        writer.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            System.out.println("共写入 " + writer.getCount() + " 本图书信息到 " + FILE_PATH);
+        }
+    }
+
+    /**
+     * 抓取、提取、索引三段并行，图书写入索引后记录到检查点
+     * 恢复时以增量模式打开索引，并先重放检查点中的图书
+     * @param frontier 爬取前沿
+     * @param urls 待爬取的图书详情页链接
+     * @param config 索引参数，threads 作为索引线程数
+     * @param resume 是否从检查点恢复
+     */
+    private static void crawlIntoIndex(CrawlFrontier frontier, List<String> urls, IndexerConfig config, boolean resume) throws IOException {
+        System.out.println("\n正在爬取图书信息并直接写入索引 " + config.getIndexDir() + " ...");
+        long startTime = System.currentTimeMillis();
+        config.setIncremental(resume);
+        int total;
+        String stats;
+        // 失败时同样关闭索引，已写入并记录到检查点的图书随之提交，--resume 时不必重新抓取
+        try (BookSink sink = config.getShards() > 1 ? new ShardedBookIndexer(config) : new BookIndexer(config)) {
+            if (resume) {
+                frontier.forEachBook(book -> {
+                    try {
+                        sink.indexBook(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            CrawlPipeline pipeline = new CrawlPipeline(fetchEngine, CRAWL_EXTRACT_THREADS, config.getThreads(), CRAWL_PIPELINE_QUEUE_CAPACITY);
+            total = pipeline.run(urls, sink, frontier);
+            frontier.checkpoint();
+            stats = sink.getStats();
         }
+        System.out.println(stats);
+        double seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        System.out.printf("共索引 %d 本书籍。耗时: %.2f 秒\n", total, seconds);
     }
 }
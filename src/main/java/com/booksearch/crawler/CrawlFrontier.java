@@ -0,0 +1,200 @@
+package com.booksearch.crawler;
+
+import com.booksearch.model.Book;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static com.booksearch.util.BookSerializer.fromJson;
+import static com.booksearch.util.BookSerializer.toJson;
+
+/**
+ * 持久化的爬取前沿，使中断的爬取可以从上次的位置继续
+ *   frontier.txt  规范化去重后的全部图书 url，每行一个
+ *   done.jsonl    已完成的 url 与提取出的图书，每行 "url\t图书 JSON"，只追加；无法解析的行被忽略，其 url 会被重新抓取
+ */
+public class CrawlFrontier implements Closeable {
+    private static final String FRONTIER_FILE = "frontier.txt";
+    private static final String DONE_FILE = "done.jsonl";
+
+    private final Path dir;
+    private final int checkpointEvery;
+    private final long checkpointIntervalMs;
+    private final List<String> urls = new ArrayList<>();
+    private final Set<String> done = new HashSet<>();
+    private final BufferedWriter doneWriter;
+    private int unflushed = 0;
+    private long lastFlush = System.currentTimeMillis();
+
+    /**
+     * @param dir 状态目录
+     * @param resume true 时加载已有状态继续爬取，false 时清空状态重新开始
+     * @param checkpointEvery 每完成多少条刷新一次检查点
+     * @param checkpointIntervalMs 距上次刷新超过该时间也刷新
+     */
+    public CrawlFrontier(Path dir, boolean resume, int checkpointEvery, long checkpointIntervalMs) throws IOException {
+        this.dir = dir;
+        this.checkpointEvery = checkpointEvery;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        Files.createDirectories(dir);
+        if (resume) {
+            load();
+        } else {
+            Files.deleteIfExists(dir.resolve(FRONTIER_FILE));
+            Files.deleteIfExists(dir.resolve(DONE_FILE));
+        }
+        this.doneWriter = Files.newBufferedWriter(dir.resolve(DONE_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void load() throws IOException {
+        Path frontier = dir.resolve(FRONTIER_FILE);
+        if (Files.exists(frontier)) {
+            urls.addAll(Files.readAllLines(frontier, StandardCharsets.UTF_8));
+        }
+        forEachDone((url, _) -> done.add(url));
+
+        // 上次中断在行中间时补一个换行，新追加的记录不会与残行连在一起
+        Path doneFile = dir.resolve(DONE_FILE);
+        if (Files.exists(doneFile) && Files.size(doneFile) > 0) {
+            try (FileChannel channel = FileChannel.open(doneFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, channel.size() - 1);
+                if (last.get(0) != '\n') {
+                    channel.write(ByteBuffer.wrap(new byte[]{'\n'}), channel.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 状态中是否已有发现阶段得到的 url，有则无需重新抓取列表页
+     */
+    public boolean hasUrls() {
+        return !urls.isEmpty();
+    }
+
+    /**
+     * 规范化并去重后保存全部图书 url，先写临时文件再替换，避免中断时留下不完整的前沿
+     * @param discovered 从列表页发现的 url，可能包含重复
+     * @return 去重后的 url 数
+     */
+    public int setUrls(Collection<String> discovered) throws IOException {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String url : discovered) {
+            unique.add(UrlCanonicalizer.canonicalize(url));
+        }
+        urls.clear();
+        urls.addAll(unique);
+        Path tmp = dir.resolve(FRONTIER_FILE + ".tmp");
+        Files.write(tmp, urls, StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(FRONTIER_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return urls.size();
+    }
+
+    /**
+     * @return 全部 url 数
+     */
+    public int size() {
+        return urls.size();
+    }
+
+    /**
+     * @return 尚未完成的 url，保持发现顺序
+     */
+    public synchronized List<String> pending() {
+        List<String> pending = new ArrayList<>();
+        for (String url : urls) {
+            if (!done.contains(url)) {
+                pending.add(url);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 记录一个 url 已完成及其图书，可由多个线程调用；达到条数或时间间隔时刷新检查点
+     */
+    public synchronized void complete(String url, Book book) throws IOException {
+        if (!done.add(url)) {
+            return;
+        }
+        doneWriter.write(url);
+        doneWriter.write('\t');
+        doneWriter.write(toJson(book));
+        doneWriter.newLine();
+        unflushed++;
+        long now = System.currentTimeMillis();
+        if (unflushed >= checkpointEvery || now - lastFlush >= checkpointIntervalMs) {
+            doneWriter.flush();
+            unflushed = 0;
+            lastFlush = now;
+        }
+    }
+
+    /**
+     * 立即把已完成的记录写入磁盘
+     */
+    public synchronized void checkpoint() throws IOException {
+        doneWriter.flush();
+        unflushed = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * 依次读取检查点中的全部图书，包括此前各次运行的结果
+     */
+    public void forEachBook(Consumer<Book> consumer) throws IOException {
+        checkpoint();
+        forEachDone((_, book) -> consumer.accept(book));
+    }
+
+    private void forEachDone(BiConsumer<String, Book> consumer) throws IOException {
+        Path file = dir.resolve(DONE_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                Book book;
+                try {
+                    book = fromJson(line.substring(tab + 1));
+                } catch (IOException e) {
+                    // 中断时写了一半的行
+                    continue;
+                }
+                consumer.accept(line.substring(0, tab), book);
+            }
+        }
+    }
+
+    /**
+     * 刷新并关闭检查点文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        doneWriter.close();
+    }
+}
@@ -0,0 +1,201 @@
+package com.booksearch.crawler;
+
+import com.booksearch.indexer.BookSink;
+import com.booksearch.model.Book;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.booksearch.util.PrintProgressBar.printProgressCount;
+
+/**
+ * 抓取 -> 提取 -> 索引 三段式流水线，各段之间用有界队列连接，不生成中间的 books.json
+ */
+public class CrawlPipeline {
+    // 页面及其来源 url，完成后据此记录检查点
+    private record Page(String url, Document doc) {
+    }
+
+    private record Extracted(String url, Book book) {
+    }
+
+    // 通知下游线程退出的哨兵对象
+    private static final Page PAGE_POISON = new Page(null, null);
+    private static final Extracted BOOK_POISON = new Extracted(null, null);
+
+    private final FetchEngine fetchEngine;
+    private final int extractThreads;
+    private final int indexThreads;
+    private final int queueCapacity;
+
+    /**
+     * @param fetchEngine 抓取引擎，控制并发与限流
+     * @param extractThreads 提取线程数
+     * @param indexThreads 索引线程数
+     * @param queueCapacity 各段之间队列的长度
+     */
+    public CrawlPipeline(FetchEngine fetchEngine, int extractThreads, int indexThreads, int queueCapacity) {
+        this.fetchEngine = fetchEngine;
+        this.extractThreads = extractThreads;
+        this.indexThreads = indexThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 运行流水线直到所有 url 处理完毕
+     * @param urls 图书详情页链接
+     * @param sink 索引目标
+     * @return 写入索引的图书数
+     */
+    public int run(List<String> urls, BookSink sink) throws IOException {
+        return run(urls, sink, null);
+    }
+
+    /**
+     * 运行流水线，每本书写入索引后记录到爬取前沿，中断后可从检查点继续
+     * @param urls 图书详情页链接
+     * @param sink 索引目标
+     * @param frontier 爬取前沿，为 null 时不记录
+     * @return 写入索引的图书数
+     */
+    public int run(List<String> urls, BookSink sink, CrawlFrontier frontier) throws IOException {
+        BlockingQueue<Page> pages = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Extracted> books = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger indexed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+
+        ExecutorService fetchStage = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService extractStage = Executors.newFixedThreadPool(extractThreads);
+        ExecutorService indexStage = Executors.newFixedThreadPool(indexThreads);
+        try {
+            // 抓取：每个 url 一个虚拟线程，页面队列写满时阻塞
+            List<Future<?>> fetches = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                fetches.add(fetchStage.submit(() -> {
+                    Document doc = fetchEngine.fetch(url);
+                    if (doc != null) {
+                        pages.put(new Page(url, doc));
+                    }
+                    return null;
+                }));
+            }
+
+            // 提取：解析页面得到 Book；单个页面格式异常时记录并跳过，不影响其他页面
+            List<Future<?>> extractors = new ArrayList<>(extractThreads);
+            for (int i = 0; i < extractThreads; i++) {
+                extractors.add(extractStage.submit(() -> {
+                    while (true) {
+                        Page page = pages.take();
+                        if (page == PAGE_POISON) {
+                            return null;
+                        }
+                        Book book;
+                        try {
+                            book = BookCrawler.extractBook(page.doc());
+                        } catch (RuntimeException e) {
+                            skipped.incrementAndGet();
+                            System.err.println("提取失败，已跳过：" + page.url() + " " + e);
+                            continue;
+                        }
+                        if (!"<UNK>".equals(book.getIsbn())) {
+                            books.put(new Extracted(page.url(), book));
+                        }
+                    }
+                }));
+            }
+
+            // 索引：写入 BookSink
+            List<Future<?>> indexers = new ArrayList<>(indexThreads);
+            for (int i = 0; i < indexThreads; i++) {
+                indexers.add(indexStage.submit(() -> {
+                    while (true) {
+                        Extracted extracted = books.take();
+                        if (extracted == BOOK_POISON) {
+                            return null;
+                        }
+                        sink.indexBook(extracted.book());
+                        if (frontier != null) {
+                            frontier.complete(extracted.url(), extracted.book());
+                        }
+                        int done = indexed.incrementAndGet();
+                        if (done % 100 == 0) {
+                            synchronized (CrawlPipeline.class) {
+                                printProgressCount(done);
+                            }
+                        }
+                    }
+                }));
+            }
+
+            // 上一段全部结束后向下一段发送哨兵，任一段失败时中断所有线程
+            List<Future<?>> workers = new ArrayList<>(extractors);
+            workers.addAll(indexers);
+            awaitAll(fetches, workers);
+            for (int i = 0; i < extractThreads; i++) {
+                putWhileWatching(pages, PAGE_POISON, workers);
+            }
+            awaitAll(extractors, workers);
+            for (int i = 0; i < indexThreads; i++) {
+                putWhileWatching(books, BOOK_POISON, workers);
+            }
+            awaitAll(indexers, workers);
+            System.out.println();
+            if (skipped.get() > 0) {
+                System.out.println("共 " + skipped.get() + " 个页面提取失败，未写入索引，可使用 --resume 重试");
+            }
+            return indexed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("流水线被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("流水线执行失败", e.getCause());
+        } finally {
+            fetchStage.shutdownNow();
+            extractStage.shutdownNow();
+            indexStage.shutdownNow();
+        }
+    }
+
+    /**
+     * 等待一组任务结束，同时检查下游线程是否已失败，避免上游因队列写满而永久阻塞
+     */
+    private static void awaitAll(List<Future<?>> futures, List<Future<?>> workers)
+            throws InterruptedException, ExecutionException {
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(100, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    checkFailed(workers);
+                }
+            }
+        }
+    }
+
+    private static <T> void putWhileWatching(BlockingQueue<T> queue, T item, List<Future<?>> workers)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            checkFailed(workers);
+        }
+    }
+
+    private static void checkFailed(List<Future<?>> futures) throws InterruptedException, ExecutionException {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                future.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.booksearch.crawler;
+
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * 基于虚拟线程的并发抓取引擎
+ * 限制全局并发数、单个主机并发数和请求速率，对超时、连接失败、429 和 5xx 响应按指数退避重试
+ */
+public class FetchEngine {
+    private final Semaphore globalPermits;
+    private final int maxConcurrency;
+    private final int maxPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final TokenBucket rateLimiter;
+    private final int maxRetries;
+    private final int timeoutMillis;
+    private final long backoffMillis;
+    private ResponseCache cache;
+    private boolean replay;
+
+    /**
+     * 使用 Constants 中的默认参数
+     */
+    public FetchEngine() {
+        this(CRAWL_MAX_CONCURRENCY, CRAWL_MAX_PER_HOST, CRAWL_RATE_PER_SECOND,
+                CRAWL_MAX_RETRIES, CRAWL_TIMEOUT_MS, CRAWL_BACKOFF_MS);
+    }
+
+    /**
+     * @param maxConcurrency 全局最大并发请求数
+     * @param maxPerHost 单个主机最大并发请求数
+     * @param requestsPerSecond 全局每秒请求数上限，<= 0 表示不限流
+     * @param maxRetries 临时失败的最大重试次数
+     * @param timeoutMillis 单次请求超时
+     * @param backoffMillis 首次重试前的等待时间，之后每次翻倍
+     */
+    public FetchEngine(int maxConcurrency, int maxPerHost, double requestsPerSecond,
+                       int maxRetries, int timeoutMillis, long backoffMillis) {
+        this.globalPermits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.maxPerHost = maxPerHost;
+        this.rateLimiter = new TokenBucket(requestsPerSecond, Math.max(1.0, requestsPerSecond));
+        this.maxRetries = maxRetries;
+        this.timeoutMillis = timeoutMillis;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * 启用响应缓存
+     * @param cache 磁盘响应缓存
+     * @param replay true 时只从缓存读取，缓存中没有的页面视为抓取失败
+     * @return this
+     */
+    public FetchEngine useCache(ResponseCache cache, boolean replay) {
+        this.cache = cache;
+        this.replay = replay;
+        return this;
+    }
+
+    /**
+     * 抓取网页 html 文档，阻塞直到成功或重试耗尽
+     * @param url 要抓取的网页 url
+     * @return 抓取得到的 html 文档，失败时返回 null
+     */
+    public Document fetch(String url) {
+        ResponseCache.Entry cached = null;
+        if (cache != null) {
+            cached = cache.get(url);
+            if (replay) {
+                if (cached == null) {
+                    System.err.println("回放模式下缓存中没有该页面：" + url);
+                    return null;
+                }
+                return Jsoup.parse(cached.body(), url);
+            }
+            if (cached != null && cache.isFresh(cached)) {
+                return Jsoup.parse(cached.body(), url);
+            }
+        }
+
+        Semaphore hostLimit = hostPermits.computeIfAbsent(hostOf(url), _ -> new Semaphore(maxPerHost));
+        try {
+            globalPermits.acquire();
+            try {
+                hostLimit.acquire();
+                try {
+                    return fetchWithRetry(url, cached);
+                } finally {
+                    hostLimit.release();
+                }
+            } finally {
+                globalPermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private Document fetchWithRetry(String url, ResponseCache.Entry cached) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            rateLimiter.acquire();
+            try {
+                return cache == null ? Jsoup.connect(url).timeout(timeoutMillis).get() : fetchThroughCache(url, cached);
+            } catch (IOException e) {
+                if (!isTransient(e) || attempt >= maxRetries) {
+                    System.err.println("爬取失败：" + url + " " + e.getMessage());
+                    return null;
+                }
+                // 指数退避并加入随机抖动，避免重试请求集中到达
+                long delay = backoffMillis << attempt;
+                Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+            }
+        }
+    }
+
+    /**
+     * 带条件头请求页面：304 时沿用缓存正文并刷新抓取时间，200 时写入缓存
+     * 其他状态码按 HttpStatusException 抛出，与不使用缓存时的重试规则一致
+     */
+    private Document fetchThroughCache(String url, ResponseCache.Entry cached) throws IOException {
+        Connection connection = Jsoup.connect(url).timeout(timeoutMillis).ignoreHttpErrors(true);
+        if (cached != null) {
+            if (cached.etag() != null) {
+                connection.header("If-None-Match", cached.etag());
+            }
+            if (cached.lastModified() != null) {
+                connection.header("If-Modified-Since", cached.lastModified());
+            }
+        }
+        Connection.Response response = connection.execute();
+        int status = response.statusCode();
+        if (status == 304 && cached != null) {
+            cache.touch(cached);
+            return Jsoup.parse(cached.body(), url);
+        }
+        if (status != 200) {
+            throw new HttpStatusException("HTTP error fetching URL", status, url);
+        }
+        String body = response.body();
+        cache.put(url, body, response.header("ETag"), response.header("Last-Modified"));
+        return Jsoup.parse(body, url);
+    }
+
+    /**
+     * 判断异常是否值得重试
+     */
+    private static boolean isTransient(IOException e) {
+        if (e instanceof HttpStatusException statusException) {
+            int status = statusException.getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return e instanceof SocketTimeoutException || e instanceof ConnectException;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 在虚拟线程上对每个 url 执行 task，阻塞直到全部完成，在途任务数不超过全局并发数的两倍
+     * task 抛出异常后不再提交新任务，等待在途任务结束后重新抛出第一个异常
+     * @param urls url 列表
+     * @param task 对单个 url 的处理，结果由 task 自行交给下游
+     */
+    public void forEach(Iterable<String> urls, Consumer<String> task) {
+        Semaphore window = new Semaphore(Math.max(1, maxConcurrency * 2));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String url : urls) {
+                window.acquire();
+                if (failure.get() != null) {
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        task.accept(url);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        window.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+    }
+}
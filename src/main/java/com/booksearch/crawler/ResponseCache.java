@@ -0,0 +1,146 @@
+package com.booksearch.crawler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 以 url 为键的磁盘响应缓存，每个 url 对应 xx/hash.html.gz 与 xx/hash.meta 两个文件
+ * 先写正文再写元数据，元数据存在即表示条目完整；可被多个抓取线程并发读写
+ */
+public class ResponseCache {
+    private final Path dir;
+    private final long ttlMillis;
+
+    /**
+     * 缓存条目
+     * @param url 规范化后的 url
+     * @param body 响应正文
+     * @param etag 响应的 ETag，没有时为 null
+     * @param lastModified 响应的 Last-Modified，没有时为 null
+     * @param fetchedAt 最近一次从网络确认内容的时间
+     */
+    public record Entry(String url, String body, String etag, String lastModified, long fetchedAt) {
+    }
+
+    /**
+     * @param dir 缓存目录
+     * @param ttlMillis 条目在该时间内视为新鲜，直接使用而不访问网络；过期后发送条件请求确认
+     */
+    public ResponseCache(Path dir, long ttlMillis) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @return 条目是否仍在有效期内
+     */
+    public boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt() < ttlMillis;
+    }
+
+    /**
+     * 读取缓存条目
+     * @param url 原始 url
+     * @return 缓存条目，不存在或已损坏时返回 null
+     */
+    public Entry get(String url) {
+        String canonical = UrlCanonicalizer.canonicalize(url);
+        Path base = pathOf(canonical);
+        Properties meta = new Properties();
+        try (Reader reader = Files.newBufferedReader(metaPath(base), StandardCharsets.UTF_8)) {
+            meta.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("读取缓存元数据失败：" + url + " " + e.getMessage());
+            return null;
+        }
+        String body;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(bodyPath(base)))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("读取缓存正文失败：" + url + " " + e.getMessage());
+            return null;
+        }
+        return new Entry(canonical, body, meta.getProperty("etag"), meta.getProperty("lastModified"),
+                Long.parseLong(meta.getProperty("fetchedAt", "0")));
+    }
+
+    /**
+     * 写入或覆盖缓存条目，抓取时间为当前时间
+     */
+    public void put(String url, String body, String etag, String lastModified) throws IOException {
+        String canonical = UrlCanonicalizer.canonicalize(url);
+        Path base = pathOf(canonical);
+        Files.createDirectories(base.getParent());
+        Path bodyTmp = tmpOf(bodyPath(base));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(bodyTmp))) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.move(bodyTmp, bodyPath(base), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeMeta(base, new Entry(canonical, body, etag, lastModified, System.currentTimeMillis()));
+    }
+
+    /**
+     * 服务器返回 304 时只更新抓取时间，正文不变
+     */
+    public void touch(Entry entry) throws IOException {
+        writeMeta(pathOf(entry.url()), new Entry(entry.url(), entry.body(), entry.etag(), entry.lastModified(),
+                System.currentTimeMillis()));
+    }
+
+    private void writeMeta(Path base, Entry entry) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("url", entry.url());
+        if (entry.etag() != null) meta.setProperty("etag", entry.etag());
+        if (entry.lastModified() != null) meta.setProperty("lastModified", entry.lastModified());
+        meta.setProperty("fetchedAt", String.valueOf(entry.fetchedAt()));
+        Path metaTmp = tmpOf(metaPath(base));
+        try (Writer writer = Files.newBufferedWriter(metaTmp, StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+        Files.move(metaTmp, metaPath(base), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path pathOf(String canonicalUrl) {
+        String hash = sha256(canonicalUrl);
+        return dir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static Path bodyPath(Path base) {
+        return base.resolveSibling(base.getFileName() + ".html.gz");
+    }
+
+    private static Path metaPath(Path base) {
+        return base.resolveSibling(base.getFileName() + ".meta");
+    }
+
+    // 每个线程使用不同的临时文件，避免并发写同一 url 时互相覆盖
+    private static Path tmpOf(Path path) {
+        return path.resolveSibling(path.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", e);
+        }
+    }
+}
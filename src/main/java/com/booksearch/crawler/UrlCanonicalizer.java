@@ -0,0 +1,68 @@
+package com.booksearch.crawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 将 url 规范化为统一形式，用于去重
+ * 补全协议相对地址、主机名转小写、去掉默认端口与片段、去掉跟踪参数并按名称排序其余参数
+ */
+public class UrlCanonicalizer {
+    // 只用于统计来源、不影响页面内容的参数
+    private static final Set<String> TRACKING_PARAMS = Set.of("spm", "scm", "gclid", "fbclid");
+
+    /**
+     * @param url 原始 url
+     * @return 规范化后的 url；无法解析时返回去掉首尾空白的原串
+     */
+    public static String canonicalize(String url) {
+        String trimmed = url.trim();
+        if (trimmed.startsWith("//")) {
+            trimmed = "https:" + trimmed;
+        }
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getHost() == null) {
+            return trimmed;
+        }
+
+        String scheme = uri.getScheme() == null ? "https" : uri.getScheme().toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        sb.append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            sb.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        sb.append(path == null || path.isEmpty() ? "/" : path);
+
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            List<String> params = new ArrayList<>();
+            for (String param : query.split("&")) {
+                if (param.isEmpty()) {
+                    continue;
+                }
+                int eq = param.indexOf('=');
+                String name = (eq < 0 ? param : param.substring(0, eq)).toLowerCase(Locale.ROOT);
+                if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name)) {
+                    continue;
+                }
+                params.add(param);
+            }
+            params.sort(null);
+            if (!params.isEmpty()) {
+                sb.append('?').append(String.join("&", params));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,40 +1,169 @@
 package com.booksearch.indexer;
 
 import com.booksearch.model.Book;
+import com.booksearch.util.BookJsonReader;
 import static com.booksearch.util.BookSerializer.*;
 import static com.booksearch.util.Constants.*;
-import static com.booksearch.util.PrintProgressBar.printProgressBar;
+import static com.booksearch.util.PrintProgressBar.printProgressCount;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class BookIndexApp {
-    public static void main(String[] args) {
-        try {
-            BookIndexer bookIndexer = new BookIndexer();
+    // 通知工作线程退出的哨兵对象
+    private static final Book POISON_PILL = new Book();
 
-            System.out.println("正在读取 Book 文件...");
-            List<Book> books = deserializeAll(new File(FILE_PATH));
-            if (books.isEmpty()) {
-                System.out.println("未加载到任何书籍数据");
-                return;
+    /**
+     * 用法: BookIndexApp [--incremental] [--sort-by-date] [--shards=N] [--shard-by=isbn|category] [--compression=speed|compression] [线程数]
+     * 线程数为 1 时按顺序索引，否则启用并行索引
+     * --incremental 在已有索引上只更新变化的书籍，并删除数据源中已不存在的书籍
+     * --sort-by-date 按出版日期倒序预排序索引
+     * --shards=N 将书籍分配到 N 个分片索引，--shard-by 指定按 ISBN 哈希或类别分片
+     * --compression 指定存储字段的压缩模式，compression 索引更小，读取详情稍慢
+     */
+    public static void main(String[] args) {
+        IndexerConfig config = new IndexerConfig();
+        for (String arg : args) {
+            if (arg.equals("--incremental")) {
+                config.setIncremental(true);
+            } else if (arg.equals("--sort-by-date")) {
+                config.setSortByPublicationDate(true);
+            } else if (arg.startsWith("--shards=")) {
+                config.setShards(Integer.parseInt(arg.substring("--shards=".length())));
+            } else if (arg.startsWith("--shard-by=")) {
+                config.setShardBy(IndexerConfig.parseShardBy(arg.substring("--shard-by=".length())));
+            } else if (arg.startsWith("--compression=")) {
+                String mode = arg.substring("--compression=".length());
+                config.setSchema(config.getSchema().withCompression(IndexSchema.parseCompression(mode)));
+            } else {
+                config.setThreads(Integer.parseInt(arg));
             }
+        }
 
-            System.out.printf("已加载 %d 本书籍，开始创建索引...\n", books.size());
-            int total = books.size();
+        System.out.println("正在流式读取 Book 文件并创建索引，线程数: " + config.getThreads());
+        try (BookJsonReader books = openReader(new File(FILE_PATH));
+             BookSink bookIndexer = config.getShards() > 1 ? new ShardedBookIndexer(config) : new BookIndexer(config)) {
             long startTime = System.currentTimeMillis();
-            for (int i = 0; i < books.size(); i++) {
-                Book book = books.get(i);
-                bookIndexer.indexBook(book);
-                printProgressBar(i+1, total);
+            int total;
+            try {
+                if (config.getThreads() <= 1) {
+                    total = 0;
+                    while (books.hasNext()) {
+                        bookIndexer.indexBook(books.next());
+                        printProgress(++total);
+                    }
+                } else {
+                    total = indexInParallel(bookIndexer, books, config);
+                }
+            } catch (IOException | RuntimeException e) {
+                // 索引失败时保留上次提交的索引，不提交写了一半的结果
+                bookIndexer.rollback();
+                throw e;
             }
-            long endTime = System.currentTimeMillis();
-            System.out.printf("所有书籍索引完成。耗时: %.2f 秒\n", (endTime - startTime) / 1000.0);
+            System.out.println();
+            if (total == 0) {
+                // 数据源为空时回滚，非增量模式下不会以空索引覆盖已有索引
+                bookIndexer.rollback();
+                System.out.println("未加载到任何书籍数据");
+                return;
+            }
+            bookIndexer.deleteMissing();
             bookIndexer.close();
-        } catch (IOException e) {
+            System.out.println(bookIndexer.getStats());
+            long endTime = System.currentTimeMillis();
+            double seconds = (endTime - startTime) / 1000.0;
+            System.out.printf("共索引 %d 本书籍。耗时: %.2f 秒，吞吐量: %.1f 本/秒\n", total, seconds, total / Math.max(seconds, 0.001));
+        } catch (IOException | UncheckedIOException e) {
             System.out.println("构建索引过程失败" + e);
         }
     }
+
+    /**
+     * 并行索引：当前线程读取书籍并放入有界队列，工作线程取出后调用 indexBook
+     * @param bookIndexer 共享的索引器，单个索引或分片索引
+     * @param books 书籍来源，可以是流式读取器
+     * @param config 线程数与队列长度
+     * @return 已索引的书籍数
+     */
+    public static int indexInParallel(BookSink bookIndexer, Iterator<Book> books, IndexerConfig config) throws IOException {
+        BlockingQueue<Book> queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        AtomicInteger completed = new AtomicInteger();
+        int threads = config.getThreads();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(workers.submit(() -> {
+                while (true) {
+                    Book book = queue.take();
+                    if (book == POISON_PILL) {
+                        return null;
+                    }
+                    bookIndexer.indexBook(book);
+                    printProgress(completed.incrementAndGet());
+                }
+            }));
+        }
+        workers.shutdown();
+
+        try {
+            while (books.hasNext()) {
+                Book book = books.next();
+                // 工作线程异常退出后不再阻塞等待队列空位
+                while (!queue.offer(book, 100, TimeUnit.MILLISECONDS)) {
+                    checkWorkers(futures);
+                }
+            }
+            for (int i = 0; i < threads; i++) {
+                while (!queue.offer(POISON_PILL, 100, TimeUnit.MILLISECONDS)) {
+                    checkWorkers(futures);
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("索引过程被中断", e);
+        } catch (Exception e) {
+            throw new IOException("索引工作线程失败", e.getCause() != null ? e.getCause() : e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return completed.get();
+    }
+
+    /**
+     * 每 1000 本刷新一次进度，避免频繁输出拖慢索引
+     */
+    private static void printProgress(int completed) {
+        if (completed % 1000 == 0) {
+            synchronized (BookIndexApp.class) {
+                printProgressCount(completed);
+            }
+        }
+    }
+
+    /**
+     * 若有工作线程已经失败，立即抛出其异常
+     */
+    private static void checkWorkers(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                future.get();
+            }
+        }
+    }
 }
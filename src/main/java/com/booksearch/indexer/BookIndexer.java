@@ -1,90 +1,370 @@
 package com.booksearch.indexer;
 
 import com.booksearch.model.Book;
-import static com.booksearch.util.Constants.*;
+import com.booksearch.util.BookFacets;
+import com.booksearch.util.BookFields;
+import com.booksearch.util.BookSorts;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
 import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
 import org.apache.lucene.document.*;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BookIndexer implements BookSink {
+    private static final Set<String> HASH_FIELDS = Set.of("isbn", "contentHash");
 
-public class BookIndexer {
     private final IndexWriter writer;
+    private final IndexSchema schema;
+    private final boolean incremental;
+    // 增量模式下索引中已有的 ISBN -> 内容哈希
+    private final Map<String, String> existingHashes;
+    // 本次运行中出现过的 ISBN -> 最后写入的内容哈希
+    private final Map<String, String> seenHashes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger added = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
 
     /**
-     * 初始化 IndexManager
+     * 使用默认配置初始化 IndexManager
      */
     public BookIndexer() throws IOException {
-        Directory dir = FSDirectory.open(Paths.get(INDEX_FILE_DIR));
-        Analyzer analyzer = new SmartChineseAnalyzer();
-        IndexWriterConfig iwc = new IndexWriterConfig(analyzer);
-        iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this(new IndexerConfig());
+    }
+
+    /**
+     * 初始化 IndexManager
+     * @param config 索引参数（目录、内存缓冲区、合并策略）
+     */
+    public BookIndexer(IndexerConfig config) throws IOException {
+        this(config, config.getIndexDir());
+    }
+
+    /**
+     * 在指定目录初始化 IndexManager，分片索引的每个分片各用一个目录
+     * @param config 索引参数
+     * @param indexDir 索引目录，覆盖 config 中的目录
+     */
+    public BookIndexer(IndexerConfig config, String indexDir) throws IOException {
+        this(config, FSDirectory.open(Paths.get(indexDir)));
+    }
+
+    /**
+     * 在给定的 Directory 上初始化，测试时使用内存目录
+     * @param config 索引参数，忽略其中的目录
+     * @param dir 索引目录
+     */
+    BookIndexer(IndexerConfig config, Directory dir) throws IOException {
+        IndexWriterConfig iwc = new IndexWriterConfig(indexAnalyzer());
+        // 字段的索引选项由索引结构声明，存储字段的压缩模式由编解码器决定
+        this.schema = config.getSchema();
+        iwc.setCodec(schema.codec());
+        // 全量模式重建索引；增量模式在已有索引上按 ISBN 更新
+        this.incremental = config.isIncremental();
+        iwc.setOpenMode(incremental ? IndexWriterConfig.OpenMode.CREATE_OR_APPEND : IndexWriterConfig.OpenMode.CREATE);
+        // 内存缓冲区越大，flush 出的小段越少，后续合并的代价也越小
+        iwc.setRAMBufferSizeMB(config.getRamBufferMB());
+        iwc.setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+        if (config.isSortByPublicationDate()) {
+            // 段内文档按出版日期倒序存放，按 NEWEST 排序的查询取满前 N 条即可停止
+            iwc.setIndexSort(BookSorts.NEWEST);
+        }
+
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(config.getSegmentsPerTier());
+        mergePolicy.setMaxMergeAtOnce(config.getMaxMergeAtOnce());
+        mergePolicy.setMaxMergedSegmentMB(config.getMaxMergedSegmentMB());
+        iwc.setMergePolicy(mergePolicy);
+
         this.writer = new IndexWriter(dir, iwc);
+        this.existingHashes = incremental ? loadExistingHashes() : Map.of();
     }
 
     /**
-     * 将单个 Book 对象添加到 Lucene 索引
+     * 索引用的分析器：分词与 SmartChineseAnalyzer 相同，合并字段相邻两个值之间留出位置间隔
+     */
+    static Analyzer indexAnalyzer() {
+        Analyzer delegate = new SmartChineseAnalyzer();
+        return new DelegatingAnalyzerWrapper(Analyzer.PER_FIELD_REUSE_STRATEGY) {
+            @Override
+            protected Analyzer getWrappedAnalyzer(String fieldName) {
+                return delegate;
+            }
+
+            @Override
+            public int getPositionIncrementGap(String fieldName) {
+                return BookFields.ALL.equals(fieldName)
+                        ? BookFields.ALL_FIELD_POSITION_GAP
+                        : super.getPositionIncrementGap(fieldName);
+            }
+        };
+    }
+
+    /**
+     * 读取索引中每本书的内容哈希，旧索引中没有哈希的书籍会在本次运行中被重新索引
+     * @return ISBN -> 内容哈希
+     */
+    private Map<String, String> loadExistingHashes() throws IOException {
+        Map<String, String> hashes = new HashMap<>();
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            checkSchema(reader);
+            for (LeafReaderContext context : reader.leaves()) {
+                LeafReader leaf = context.reader();
+                Bits liveDocs = leaf.getLiveDocs();
+                StoredFields storedFields = leaf.storedFields();
+                for (int i = 0; i < leaf.maxDoc(); i++) {
+                    if (liveDocs != null && !liveDocs.get(i)) {
+                        continue;
+                    }
+                    Document doc = storedFields.document(i, HASH_FIELDS);
+                    String isbn = doc.get("isbn");
+                    if (isbn != null) {
+                        hashes.put(isbn, doc.get("contentHash") == null ? "" : doc.get("contentHash"));
+                    }
+                }
+            }
+        }
+        System.out.printf("已有索引中共 %d 本书籍\n", hashes.size());
+        return hashes;
+    }
+
+    /**
+     * 检查已有索引的字段与索引结构是否一致
+     * Lucene 不允许同一字段在不同文档中使用不同的索引选项，不一致时增量写入会在第一本书上失败，这里提前给出原因
+     * @throws IllegalStateException 索引选项或 norms 与声明不一致
+     */
+    private void checkSchema(DirectoryReader reader) {
+        FieldInfos fieldInfos = FieldInfos.getMergedFieldInfos(reader);
+        for (Map.Entry<String, IndexSchema.FieldSpec> entry : schema.getSpecs().entrySet()) {
+            FieldInfo info = fieldInfos.fieldInfo(entry.getKey());
+            if (info == null) {
+                continue;
+            }
+            IndexSchema.FieldSpec spec = entry.getValue();
+            if (info.getIndexOptions() != spec.indexOptions() || info.hasNorms() != (spec.norms() && spec.indexOptions() != IndexOptions.NONE)) {
+                throw new IllegalStateException(String.format(
+                        "已有索引中字段 %s 的结构（%s，norms=%b）与声明不一致，请全量重建或使用 IndexAdminApp rewrite 迁移",
+                        entry.getKey(), info.getIndexOptions(), info.hasNorms()));
+            }
+        }
+    }
+
+    /**
+     * 将单个 Book 对象写入 Lucene 索引，同一 ISBN 的旧文档会被替换
+     * 增量模式下内容未变化的书籍直接跳过，不做分词
+     * 同一次运行中重复出现的 ISBN 单独计数：内容与本次已写入的相同时跳过，不同时以后出现的为准
+     * IndexWriter 是线程安全的，可由多个线程并发调用，分词在调用线程上完成
      *
      * @param book 要索引的 Book 对象
      */
+    @Override
     public void indexBook(Book book) throws IOException {
         if (book == null || book.getIsbn() == null || "<UNK>".equals(book.getIsbn())) {
             return;
         }
+        String isbn = book.getIsbn();
+        String hash = contentHash(book);
+        String previous = seenHashes.put(isbn, hash);
+        if (previous != null) {
+            duplicates.incrementAndGet();
+            if (previous.equals(hash)) {
+                return;
+            }
+        } else if (hash.equals(existingHashes.get(isbn))) {
+            unchanged.incrementAndGet();
+            return;
+        }
         Document doc = new Document();
 
-        // ID 字段
-        doc.add(new StringField("isbn", book.getIsbn(), Field.Store.YES));
-        // 中文文本搜索字段
-        // 索引时同时存储，方便搜索结果展示
+        // ID 字段，isbn 同时写入 doc values 作为排序的最后一级，保证分页顺序唯一
+        schema.addField(doc, "isbn", isbn);
+        schema.addField(doc, "contentHash", hash);
+        // 中文文本搜索字段，索引选项与是否存储见 IndexSchema
         if (!"<UNK>".equals(book.getTitle())) {
-            doc.add(new TextField("title", book.getTitle(), Field.Store.YES));
+            schema.addField(doc, "title", book.getTitle());
         }
         if (!"<UNK>".equals(book.getAuthor())) {
-            doc.add(new TextField("author", book.getAuthor(), Field.Store.YES));
+            schema.addField(doc, "author", book.getAuthor());
         }
         if (!"<UNK>".equals(book.getContents())) {
-            doc.add(new TextField("contents", book.getContents(), Field.Store.NO)); // 内容太长，不存储，只索引
+            schema.addField(doc, "contents", book.getContents());
         }
         if (!"<UNK>".equals(book.getBookDescription())) {
-            doc.add(new TextField("bookDescription", book.getBookDescription(), Field.Store.NO)); // 不存储，只索引
+            schema.addField(doc, "bookDescription", book.getBookDescription());
         }
         if (!"<UNK>".equals(book.getEditorRecommendation())) {
-            doc.add(new TextField("editorRecommendation", book.getEditorRecommendation(), Field.Store.NO)); // 不存储，只索引
+            schema.addField(doc, "editorRecommendation", book.getEditorRecommendation());
+        }
+
+        // 合并检索字段：按权重重复写入上面的文本字段，只索引不存储，默认查询只需读取这一个字段的倒排表
+        for (Map.Entry<String, Integer> entry : BookFields.ALL_FIELD_WEIGHTS.entrySet()) {
+            String value = doc.get(entry.getKey());
+            if (value == null) {
+                continue;
+            }
+            for (int i = 0; i < entry.getValue(); i++) {
+                schema.addField(doc, BookFields.ALL, value);
+            }
         }
 
-        // 筛选/精确字段 (StringField 不分词，但可索引)
+        // 仅存储、不参与检索的展示字段
+        if (!"<UNK>".equals(book.getAuthorDescription())) {
+            doc.add(new StoredField("authorDescription", book.getAuthorDescription()));
+        }
+        if (!"<UNK>".equals(book.getPublisher())) {
+            doc.add(new StoredField("publisher", book.getPublisher()));
+        }
+        if (!"<UNK>".equals(book.getLanguage())) {
+            doc.add(new StoredField("language", book.getLanguage()));
+        }
+        if (book.getOriginalPrice() > 0.0) {
+            doc.add(new StoredField("originalPrice", book.getOriginalPrice()));
+        }
+
+        // 筛选/精确字段，不分词，但可索引
+        // 同时写入分面字段，按类别计数时直接读取 doc values
         if (!"<UNK>".equals(book.getCategory())) {
-            doc.add(new StringField("category", book.getCategory(), Field.Store.YES));
+            schema.addField(doc, "category", book.getCategory());
+            doc.add(new SortedSetDocValuesFacetField(BookFacets.CATEGORY, book.getCategory()));
         }
 
-        // 数值和日期字段，用于范围查询和排序
-        // DoublePoint/LongPoint 用于索引数值
+        // 数值和日期字段，用于范围查询、分面计数和排序
+        // DoublePoint/LongPoint 用于范围查询，DocValues 用于计数和排序
         if (book.getSalePrice() > 0.0) {
             doc.add(new DoublePoint("salePrice", book.getSalePrice()));
+            doc.add(new DoubleDocValuesField("salePrice", book.getSalePrice()));
             doc.add(new StoredField("salePrice", book.getSalePrice())); // 存储原始值
         }
         if (book.getPublicationDate() != null) {
             // 将 LocalDate 转换为 Long 时间戳进行索引
             long dateMillis = book.getPublicationDate().atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
             doc.add(new LongPoint("publicationDate", dateMillis));
+            doc.add(new NumericDocValuesField("publicationDate", dateMillis));
             doc.add(new StoredField("publicationDate", dateMillis)); // 存储原始值
+            doc.add(new SortedSetDocValuesFacetField(BookFacets.YEAR, String.valueOf(book.getPublicationDate().getYear())));
         }
 
-        // 添加文档到索引
-        writer.addDocument(doc);
+        // 按 ISBN 更新文档，重复出现的书籍只保留一份
+        writer.updateDocument(new Term("isbn", isbn), BookFacets.CONFIG.build(doc));
+        // 重复出现的 ISBN 已计入 duplicates，不再计为新增或更新
+        if (previous == null && existingHashes.containsKey(isbn)) {
+            updated.incrementAndGet();
+        } else if (previous == null) {
+            added.incrementAndGet();
+        }
+    }
+
+    /**
+     * 返回底层 IndexWriter，供 BookSearcher 打开近实时（NRT）读取器，无需 commit 即可搜到新写入的书籍
+     * @return 共享的 IndexWriter
+     */
+    public IndexWriter getWriter() {
+        return writer;
     }
 
     /**
-     * 关闭 IndexWriter，将所有变更写入磁盘
+     * 提交当前变更，使其对从目录打开的读取器可见并持久化
      */
+    public void commit() throws IOException {
+        writer.commit();
+    }
+
+    /**
+     * 删除索引中存在但本次数据源中没有出现的书籍，仅在增量模式下、数据源完整读取后调用
+     * @return 删除的书籍数
+     */
+    @Override
+    public int deleteMissing() throws IOException {
+        if (!incremental) {
+            return 0;
+        }
+        for (String isbn : existingHashes.keySet()) {
+            if (!seenHashes.containsKey(isbn)) {
+                writer.deleteDocuments(new Term("isbn", isbn));
+                deleted.incrementAndGet();
+            }
+        }
+        return deleted.get();
+    }
+
+    /**
+     * @return 本次运行的新增、更新、未变化、重复、删除数量
+     */
+    @Override
+    public String getStats() {
+        return String.format("新增 %d，更新 %d，未变化 %d，重复 %d，删除 %d",
+                added.get(), updated.get(), unchanged.get(), duplicates.get(), deleted.get());
+    }
+
+    /**
+     * 计算书籍全部字段的 SHA-256，用于判断书籍内容是否变化
+     * 合并字段的版本号也参与计算，索引结构变化后增量索引会重建所有书籍
+     * @param book 书籍
+     * @return 十六进制哈希
+     */
+    static String contentHash(Book book) {
+        return contentHash(book, BookFields.ALL_FIELD_VERSION);
+    }
+
+    static String contentHash(Book book, int allFieldVersion) {
+        String joined = String.join("\u0001", String.valueOf(allFieldVersion),
+                book.getIsbn(), book.getTitle(), book.getAuthor(), book.getLanguage(), book.getPublisher(),
+                String.valueOf(book.getPublicationDate()), String.valueOf(book.getSalePrice()),
+                String.valueOf(book.getOriginalPrice()), book.getCategory(), book.getContents(),
+                book.getBookDescription(), book.getAuthorDescription(), book.getEditorRecommendation());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(joined.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 回滚 IndexWriter，磁盘上保留上次提交的索引
+     */
+    @Override
+    public void rollback() throws IOException {
+        writer.rollback();
+    }
+
+    /**
+     * 关闭 IndexWriter，将所有变更写入磁盘；已关闭或已回滚时不做任何事
+     */
+    @Override
     public void close() throws IOException {
+        if (!writer.isOpen()) {
+            return;
+        }
         writer.close();
         System.out.println("索引构建完成，已写入磁盘");
     }
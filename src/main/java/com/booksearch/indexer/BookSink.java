@@ -0,0 +1,40 @@
+package com.booksearch.indexer;
+
+import com.booksearch.model.Book;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 接收书籍并写入索引的目标，单个索引或分片索引
+ * indexBook 可由多个线程并发调用
+ */
+public interface BookSink extends Closeable {
+    /**
+     * 写入一本书
+     * @param book 要索引的 Book 对象
+     */
+    void indexBook(Book book) throws IOException;
+
+    /**
+     * 增量模式下删除数据源中已不存在的书籍
+     * @return 删除的书籍数
+     */
+    int deleteMissing() throws IOException;
+
+    /**
+     * @return 本次运行的统计信息
+     */
+    String getStats();
+
+    /**
+     * 放弃上次提交以来的全部修改并关闭索引，之后的 close 不再提交
+     */
+    void rollback() throws IOException;
+
+    /**
+     * 提交并关闭索引
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,359 @@
+package com.booksearch.indexer;
+
+import com.booksearch.model.Book;
+import com.booksearch.util.BookDocuments;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.util.Bits;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * 索引维护工具
+ *   stats      按文件类型统计索引大小，并估算每个字段的倒排表大小
+ *   forcemerge 强制合并为指定段数，合并时按给定压缩模式重写存储字段
+ *   rewrite    读取已有索引的存储字段，按当前索引结构重建到新目录，用于更改字段的索引选项
+ * 分片索引需对每个分片目录分别执行
+ */
+public class IndexAdminApp {
+    // 常见的索引文件扩展名及含义
+    private static final Map<String, String> FILE_KINDS = new LinkedHashMap<>();
+
+    static {
+        FILE_KINDS.put("fdt", "存储字段");
+        FILE_KINDS.put("fdx", "存储字段索引");
+        FILE_KINDS.put("fdm", "存储字段元数据");
+        FILE_KINDS.put("tim", "词典");
+        FILE_KINDS.put("tip", "词典索引");
+        FILE_KINDS.put("tmd", "词典元数据");
+        FILE_KINDS.put("doc", "倒排表：文档与词频");
+        FILE_KINDS.put("pos", "倒排表：位置");
+        FILE_KINDS.put("pay", "倒排表：载荷与偏移");
+        FILE_KINDS.put("nvd", "norms");
+        FILE_KINDS.put("nvm", "norms 元数据");
+        FILE_KINDS.put("dvd", "doc values");
+        FILE_KINDS.put("dvm", "doc values 元数据");
+        FILE_KINDS.put("kdd", "数值点");
+        FILE_KINDS.put("kdi", "数值点索引");
+        FILE_KINDS.put("kdm", "数值点元数据");
+        FILE_KINDS.put("liv", "已删除文档");
+    }
+
+    /**
+     * 用法:
+     *   IndexAdminApp stats [--index=目录]
+     *   IndexAdminApp forcemerge [--segments=1] [--compression=speed|compression] [--index=目录]
+     *   IndexAdminApp rewrite --target=目录 [--compression=speed|compression] [--sort-by-date] [--threads=N] [--index=目录]
+     * 默认索引目录为 INDEX_FILE_DIR
+     * rewrite 从存储字段恢复书籍，要求原索引存储了全部文本字段
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("请指定命令：stats | forcemerge | rewrite");
+            return;
+        }
+        String indexDir = INDEX_FILE_DIR;
+        String targetDir = null;
+        int maxSegments = 1;
+        int threads = INDEX_THREADS;
+        boolean sortByDate = false;
+        IndexSchema schema = IndexSchema.defaults();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--index=")) {
+                indexDir = arg.substring("--index=".length());
+            } else if (arg.startsWith("--target=")) {
+                targetDir = arg.substring("--target=".length());
+            } else if (arg.startsWith("--segments=")) {
+                maxSegments = Integer.parseInt(arg.substring("--segments=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--compression=")) {
+                schema = schema.withCompression(IndexSchema.parseCompression(arg.substring("--compression=".length())));
+            } else if (arg.equals("--sort-by-date")) {
+                sortByDate = true;
+            }
+        }
+
+        try {
+            switch (args[0]) {
+                case "stats" -> printStats(Paths.get(indexDir));
+                case "forcemerge" -> forceMerge(Paths.get(indexDir), maxSegments, schema);
+                case "rewrite" -> {
+                    if (targetDir == null || Paths.get(targetDir).toAbsolutePath().equals(Paths.get(indexDir).toAbsolutePath())) {
+                        System.out.println("rewrite 需要用 --target 指定与原索引不同的目录");
+                        return;
+                    }
+                    IndexerConfig config = new IndexerConfig();
+                    config.setIndexDir(targetDir);
+                    config.setSchema(schema);
+                    config.setThreads(threads);
+                    config.setSortByPublicationDate(sortByDate);
+                    rewrite(Paths.get(indexDir), config);
+                }
+                default -> System.out.println("未知命令: " + args[0] + "，可选 stats | forcemerge | rewrite");
+            }
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.out.println("索引维护失败" + e);
+        }
+    }
+
+    /**
+     * 输出索引概况、各类文件大小和每个字段的结构与估算大小
+     * Lucene 的同类数据由所有字段共享同一个文件，字段大小按词项数、文档频率之和与词频之和分摊估算
+     */
+    static void printStats(Path indexDir) throws IOException {
+        try (Directory dir = FSDirectory.open(indexDir);
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+            Sort indexSort = infos.size() == 0 ? null : infos.info(0).info.getIndexSort();
+            System.out.printf("文档 %d，已删除 %d，段 %d，预排序 %s\n",
+                    reader.numDocs(), reader.numDeletedDocs(), infos.size(), indexSort == null ? "无" : indexSort);
+
+            Map<String, Long> bytesByKind = fileSizes(dir, infos);
+            long totalBytes = bytesByKind.values().stream().mapToLong(Long::longValue).sum();
+            System.out.printf("索引总大小 %.1f MB\n", totalBytes / 1048576.0);
+            for (Map.Entry<String, Long> entry : bytesByKind.entrySet()) {
+                System.out.printf("  %-4s %-18s %10.1f MB  %5.1f%%\n", entry.getKey(),
+                        FILE_KINDS.getOrDefault(entry.getKey(), "其他"),
+                        entry.getValue() / 1048576.0, entry.getValue() * 100.0 / Math.max(totalBytes, 1));
+            }
+
+            // 每个字段的词项数（各段之和，是唯一词项数的上界）、文档频率之和、词频之和
+            FieldInfos fieldInfos = FieldInfos.getMergedFieldInfos(reader);
+            Map<String, long[]> termStats = new LinkedHashMap<>();
+            long allTerms = 0;
+            long allDocFreq = 0;
+            long allPositions = 0;
+            for (FieldInfo info : fieldInfos) {
+                if (info.getIndexOptions() == IndexOptions.NONE) {
+                    continue;
+                }
+                Terms terms = MultiTerms.getTerms(reader, info.name);
+                if (terms == null) {
+                    continue;
+                }
+                long termCount = 0;
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    Terms leafTerms = leaf.reader().terms(info.name);
+                    if (leafTerms != null) {
+                        termCount += Math.max(leafTerms.size(), 0);
+                    }
+                }
+                boolean positions = info.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) >= 0;
+                long sumTotalTermFreq = terms.getSumTotalTermFreq();
+                termStats.put(info.name, new long[]{termCount, terms.getSumDocFreq(), sumTotalTermFreq, positions ? 1 : 0});
+                allTerms += termCount;
+                allDocFreq += terms.getSumDocFreq();
+                if (positions) {
+                    allPositions += sumTotalTermFreq;
+                }
+            }
+
+            long termDictBytes = bytesByKind.getOrDefault("tim", 0L) + bytesByKind.getOrDefault("tip", 0L) + bytesByKind.getOrDefault("tmd", 0L);
+            long docBytes = bytesByKind.getOrDefault("doc", 0L);
+            long posBytes = bytesByKind.getOrDefault("pos", 0L) + bytesByKind.getOrDefault("pay", 0L);
+            System.out.println("字段（估算大小为词典与倒排表按比例分摊，不含存储字段）:");
+            System.out.printf("  %-22s %-38s %-5s %-9s %12s %14s %16s %12s\n",
+                    "字段", "索引选项", "norms", "docValues", "词项数", "文档频率之和", "词频之和", "估算 MB");
+            for (FieldInfo info : fieldInfos) {
+                long[] stats = termStats.get(info.name);
+                double estimated = 0;
+                if (stats != null) {
+                    estimated = termDictBytes * ratio(stats[0], allTerms)
+                            + docBytes * ratio(stats[1], allDocFreq)
+                            + (stats[3] == 1 ? posBytes * ratio(stats[2], allPositions) : 0);
+                }
+                System.out.printf("  %-22s %-38s %-5b %-9s %12s %14s %16s %12.1f\n",
+                        info.name, info.getIndexOptions(), info.hasNorms(), info.getDocValuesType(),
+                        stats == null ? "-" : stats[0], stats == null ? "-" : stats[1],
+                        stats == null ? "-" : stats[2], estimated / 1048576.0);
+            }
+        }
+    }
+
+    private static double ratio(long part, long total) {
+        return total <= 0 ? 0 : (double) part / total;
+    }
+
+    /**
+     * 按扩展名汇总当前提交引用的文件大小，复合文件（.cfs）展开为其中的各个文件
+     */
+    private static Map<String, Long> fileSizes(Directory dir, SegmentInfos infos) throws IOException {
+        Map<String, Long> bytesByKind = new TreeMap<>();
+        for (SegmentCommitInfo commitInfo : infos) {
+            for (String file : commitInfo.files()) {
+                String kind = extension(file);
+                if (kind.equals("cfs")) {
+                    try (Directory compound = commitInfo.info.getCodec().compoundFormat()
+                            .getCompoundReader(dir, commitInfo.info, IOContext.READONCE)) {
+                        for (String inner : compound.listAll()) {
+                            bytesByKind.merge(extension(inner), compound.fileLength(inner), Long::sum);
+                        }
+                    }
+                } else {
+                    bytesByKind.merge(kind, dir.fileLength(file), Long::sum);
+                }
+            }
+        }
+        return bytesByKind;
+    }
+
+    private static String extension(String file) {
+        int dot = file.lastIndexOf('.');
+        return dot < 0 ? file : file.substring(dot + 1);
+    }
+
+    /**
+     * 强制合并索引到不超过 maxSegments 个段
+     * 合并后的段使用 schema 指定的存储字段压缩模式；沿用已有索引的预排序，否则 IndexWriter 无法打开
+     */
+    static void forceMerge(Path indexDir, int maxSegments, IndexSchema schema) throws IOException {
+        try (Directory dir = FSDirectory.open(indexDir)) {
+            SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+            boolean hasDeletions = false;
+            for (SegmentCommitInfo commitInfo : infos) {
+                hasDeletions |= commitInfo.hasDeletions();
+            }
+            if (infos.size() <= maxSegments && !hasDeletions) {
+                System.out.println("索引只有 " + infos.size() + " 个段且没有已删除文档，无需合并；更换压缩模式请使用 rewrite");
+                return;
+            }
+            IndexWriterConfig iwc = new IndexWriterConfig();
+            iwc.setOpenMode(IndexWriterConfig.OpenMode.APPEND);
+            iwc.setCodec(schema.codec());
+            if (infos.size() > 0 && infos.info(0).info.getIndexSort() != null) {
+                iwc.setIndexSort(infos.info(0).info.getIndexSort());
+            }
+            long startTime = System.currentTimeMillis();
+            System.out.printf("正在将 %d 个段合并为不超过 %d 个段，存储字段压缩模式 %s ...\n",
+                    infos.size(), maxSegments, schema.getCompression());
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                writer.forceMerge(maxSegments);
+                writer.commit();
+            }
+            System.out.printf("合并完成，耗时 %.2f 秒\n", (System.currentTimeMillis() - startTime) / 1000.0);
+        }
+        printStats(indexDir);
+    }
+
+    /**
+     * 从已有索引的存储字段恢复书籍，按 config 中的索引结构重建到新目录
+     * 原索引按出版日期预排序时，新索引同样预排序
+     */
+    static void rewrite(Path sourceDir, IndexerConfig config) throws IOException {
+        try (Directory dir = FSDirectory.open(sourceDir);
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                if (leaf.reader().getMetaData().getSort() != null) {
+                    config.setSortByPublicationDate(true);
+                    break;
+                }
+            }
+            System.out.printf("正在将 %s 中的 %d 本书籍按新结构重建到 %s，存储字段压缩模式 %s ...\n",
+                    sourceDir, reader.numDocs(), config.getIndexDir(), config.getSchema().getCompression());
+            long startTime = System.currentTimeMillis();
+            BookIndexer indexer = new BookIndexer(config);
+            int total;
+            try {
+                Iterator<Book> books = new StoredBookIterator(reader);
+                if (config.getThreads() <= 1) {
+                    total = 0;
+                    while (books.hasNext()) {
+                        indexer.indexBook(books.next());
+                        total++;
+                    }
+                } else {
+                    total = BookIndexApp.indexInParallel(indexer, books, config);
+                }
+            } finally {
+                indexer.close();
+            }
+            System.out.println();
+            System.out.printf("共重建 %d 本书籍，耗时 %.2f 秒\n", total, (System.currentTimeMillis() - startTime) / 1000.0);
+        }
+        printStats(Paths.get(config.getIndexDir()));
+    }
+
+    /**
+     * 按段依次读取未删除文档的存储字段并恢复为 Book
+     */
+    private static class StoredBookIterator implements Iterator<Book> {
+        private final DirectoryReader reader;
+        private int leafIndex = -1;
+        private LeafReader leaf;
+        private StoredFields storedFields;
+        private Bits liveDocs;
+        private int docId;
+        private Book next;
+
+        StoredBookIterator(DirectoryReader reader) {
+            this.reader = reader;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            try {
+                while (next == null) {
+                    if (leaf == null || docId >= leaf.maxDoc()) {
+                        if (++leafIndex >= reader.leaves().size()) {
+                            return;
+                        }
+                        leaf = reader.leaves().get(leafIndex).reader();
+                        storedFields = leaf.storedFields();
+                        liveDocs = leaf.getLiveDocs();
+                        docId = 0;
+                        continue;
+                    }
+                    int doc = docId++;
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        next = BookDocuments.toBook(storedFields.document(doc));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Book next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Book book = next;
+            advance();
+            return book;
+        }
+    }
+}
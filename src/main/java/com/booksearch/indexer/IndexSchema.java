@@ -0,0 +1,157 @@
+package com.booksearch.indexer;
+
+import com.booksearch.util.BookFields;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene95.Lucene95Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 索引结构的声明：各字符串字段的索引选项、norms、存储与 doc values，以及存储字段的压缩模式
+ */
+public class IndexSchema {
+
+    public enum Compression {
+        BEST_SPEED,        // 存储字段压缩比较低，读取详情更快，Lucene 的默认值
+        BEST_COMPRESSION   // 存储字段更小，读取时解压更慢，适合长文本多、详情访问少的索引
+    }
+
+    /**
+     * 单个字段的声明
+     * @param indexOptions 倒排表中记录的信息，NONE 表示只存储不检索
+     * @param tokenized 是否分词，不分词时整个值作为一个词项
+     * @param norms 是否记录字段长度用于相关度计算，不参与打分的字段应关闭
+     * @param stored 是否存储原文
+     * @param sortedDocValues 是否同时写入 SortedDocValues，用于排序与分页
+     */
+    public record FieldSpec(IndexOptions indexOptions, boolean tokenized, boolean norms, boolean stored,
+                            boolean sortedDocValues) {
+
+        /**
+         * 参与打分的分词字段
+         */
+        public static FieldSpec text(IndexOptions indexOptions, boolean stored) {
+            return new FieldSpec(indexOptions, true, true, stored, false);
+        }
+
+        /**
+         * 精确匹配的关键字字段，不分词、不打分
+         */
+        public static FieldSpec keyword(boolean stored, boolean sortedDocValues) {
+            return new FieldSpec(IndexOptions.DOCS, false, false, stored, sortedDocValues);
+        }
+
+        /**
+         * 只存储、不检索的字段，不产生词典与倒排表
+         */
+        public static FieldSpec storedOnly() {
+            return new FieldSpec(IndexOptions.NONE, false, false, true, false);
+        }
+
+        FieldType toFieldType() {
+            FieldType type = new FieldType();
+            type.setIndexOptions(indexOptions);
+            type.setTokenized(tokenized);
+            type.setOmitNorms(!norms || indexOptions == IndexOptions.NONE);
+            type.setStored(stored);
+            type.freeze();
+            return type;
+        }
+    }
+
+    private final Map<String, FieldSpec> specs;
+    private final Map<String, FieldType> types;
+    private final Compression compression;
+
+    private IndexSchema(Map<String, FieldSpec> specs, Compression compression) {
+        this.specs = Collections.unmodifiableMap(new LinkedHashMap<>(specs));
+        Map<String, FieldType> types = new LinkedHashMap<>();
+        specs.forEach((name, spec) -> types.put(name, spec.toFieldType()));
+        this.types = types;
+        this.compression = compression;
+    }
+
+    /**
+     * 默认结构：contents 与合并字段不记录位置，其上的短语查询由 BookQueryParser 降级
+     */
+    public static IndexSchema defaults() {
+        Map<String, FieldSpec> specs = new LinkedHashMap<>();
+        specs.put("isbn", FieldSpec.keyword(true, true));
+        specs.put("contentHash", FieldSpec.storedOnly());
+        specs.put("category", FieldSpec.keyword(true, false));
+        specs.put("title", FieldSpec.text(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS, true));
+        specs.put("author", FieldSpec.text(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS, true));
+        specs.put("contents", FieldSpec.text(IndexOptions.DOCS_AND_FREQS, true));
+        specs.put("bookDescription", FieldSpec.text(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS, true));
+        specs.put("editorRecommendation", FieldSpec.text(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS, true));
+        specs.put(BookFields.ALL, FieldSpec.text(IndexOptions.DOCS_AND_FREQS, false));
+        return new IndexSchema(specs, Compression.BEST_SPEED);
+    }
+
+    /**
+     * @return 替换存储字段压缩模式后的新结构
+     */
+    public IndexSchema withCompression(Compression compression) {
+        return new IndexSchema(specs, compression);
+    }
+
+    /**
+     * @return 替换单个字段声明后的新结构
+     */
+    public IndexSchema withField(String name, FieldSpec spec) {
+        Map<String, FieldSpec> copy = new LinkedHashMap<>(specs);
+        copy.put(name, spec);
+        return new IndexSchema(copy, compression);
+    }
+
+    /**
+     * 按声明向文档添加字段
+     * @throws IllegalArgumentException 字段未在结构中声明
+     */
+    public void addField(Document doc, String name, String value) {
+        FieldType type = types.get(name);
+        if (type == null) {
+            throw new IllegalArgumentException("索引结构中没有声明字段 " + name);
+        }
+        doc.add(new Field(name, value, type));
+        if (specs.get(name).sortedDocValues()) {
+            doc.add(new SortedDocValuesField(name, new BytesRef(value)));
+        }
+    }
+
+    /**
+     * @return 按压缩模式配置的编解码器
+     */
+    public Codec codec() {
+        return new Lucene95Codec(compression == Compression.BEST_COMPRESSION
+                ? Lucene95Codec.Mode.BEST_COMPRESSION
+                : Lucene95Codec.Mode.BEST_SPEED);
+    }
+
+    public Map<String, FieldSpec> getSpecs() {
+        return specs;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @param name 压缩模式名，speed 或 compression
+     */
+    public static Compression parseCompression(String name) {
+        return switch (name) {
+            case "speed" -> Compression.BEST_SPEED;
+            case "compression" -> Compression.BEST_COMPRESSION;
+            default -> throw new IllegalArgumentException("未知的压缩模式: " + name + "，可选 speed|compression");
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.booksearch.indexer;
+
+import lombok.Data;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * BookIndexer 的可调参数，默认值取自 Constants
+ */
+@Data
+public class IndexerConfig {
+    private String indexDir = INDEX_FILE_DIR;
+    private boolean incremental = false;                    // 增量模式：按 ISBN 更新，跳过未变化书籍，删除已下架书籍
+    private boolean sortByPublicationDate = false;          // 按出版日期倒序预排序索引，“最新优先”查询可提前终止；已有索引不能更改排序
+    private int threads = INDEX_THREADS;                    // 并行索引的工作线程数
+    private int queueCapacity = INDEX_QUEUE_CAPACITY;       // 读取线程与工作线程之间的有界队列长度
+    private double ramBufferMB = INDEX_RAM_BUFFER_MB;       // IndexWriter 内存缓冲区大小，越大 flush 越少
+    private double segmentsPerTier = INDEX_SEGMENTS_PER_TIER;
+    private int maxMergeAtOnce = INDEX_MAX_MERGE_AT_ONCE;
+    private double maxMergedSegmentMB = INDEX_MAX_MERGED_SEGMENT_MB;
+    private IndexSchema schema = IndexSchema.defaults();    // 各字段的索引选项与存储字段压缩模式，改变已有字段的索引选项需全量重建
+
+    // 分片：shards > 1 时索引写入 indexDir/shard-0 ... shard-(N-1)
+    private int shards = 1;
+    private ShardBy shardBy = ShardBy.ISBN_HASH;
+
+    public enum ShardBy {
+        ISBN_HASH,  // 按 ISBN 哈希均匀分布
+        CATEGORY    // 同一类别的书籍位于同一分片，ShardedBookSearcher 以同样方式打开时，按类别过滤只查询部分分片
+    }
+
+    /**
+     * @param name 分片方式名，isbn 或 category
+     */
+    public static ShardBy parseShardBy(String name) {
+        return switch (name) {
+            case "isbn" -> ShardBy.ISBN_HASH;
+            case "category" -> ShardBy.CATEGORY;
+            default -> throw new IllegalArgumentException("未知的分片方式: " + name + "，可选 isbn|category");
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.booksearch.indexer;
+
+import com.booksearch.model.Book;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将书籍按 ISBN 哈希或类别分配到 N 个独立索引，每个分片是一个完整的 BookIndexer
+ */
+public class ShardedBookIndexer implements BookSink {
+    private final BookIndexer[] shards;
+    private final IndexerConfig.ShardBy shardBy;
+
+    /**
+     * @param config 索引参数，shards 为分片数
+     */
+    public ShardedBookIndexer(IndexerConfig config) throws IOException {
+        this.shardBy = config.getShardBy();
+        this.shards = new BookIndexer[config.getShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new BookIndexer(config, shardDir(config.getIndexDir(), i));
+        }
+    }
+
+    /**
+     * @param indexDir 索引根目录
+     * @param shard 分片序号
+     * @return 分片目录
+     */
+    public static String shardDir(String indexDir, int shard) {
+        return Paths.get(indexDir, "shard-" + shard).toString();
+    }
+
+    /**
+     * 计算书籍所属分片
+     * 增量模式下书籍类别变化导致换分片时，旧分片会在 deleteMissing 中删除它
+     * @param book 书籍
+     * @param shardBy 分片方式
+     * @param shardCount 分片数
+     * @return 分片序号
+     */
+    public static int shardOf(Book book, IndexerConfig.ShardBy shardBy, int shardCount) {
+        return shardOf(shardBy == IndexerConfig.ShardBy.CATEGORY ? book.getCategory() : book.getIsbn(), shardCount);
+    }
+
+    /**
+     * 计算分片键所在的分片，ShardedBookSearcher 按类别路由查询时使用同一算法
+     * @param key 分片键，即 ISBN 或类别
+     * @param shardCount 分片数
+     * @return 分片序号
+     */
+    public static int shardOf(String key, int shardCount) {
+        return Math.floorMod(key == null ? 0 : key.hashCode(), shardCount);
+    }
+
+    @Override
+    public void indexBook(Book book) throws IOException {
+        if (book == null || book.getIsbn() == null) {
+            return;
+        }
+        shards[shardOf(book, shardBy, shards.length)].indexBook(book);
+    }
+
+    @Override
+    public int deleteMissing() throws IOException {
+        int deleted = 0;
+        for (BookIndexer shard : shards) {
+            deleted += shard.deleteMissing();
+        }
+        return deleted;
+    }
+
+    @Override
+    public String getStats() {
+        List<String> stats = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            stats.add("分片 " + i + "：" + shards[i].getStats());
+        }
+        return String.join("\n", stats);
+    }
+
+    @Override
+    public void rollback() throws IOException {
+        IOException failure = null;
+        for (BookIndexer shard : shards) {
+            try {
+                shard.rollback();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (BookIndexer shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
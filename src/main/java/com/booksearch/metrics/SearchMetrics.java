@@ -0,0 +1,269 @@
+package com.booksearch.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 搜索路径的分阶段计时：查询解析、Lucene 检索（含分面计数）、命中字段读取，以及总延迟与命中数分布
+ * 每个阶段一个 Histogram，记录时不分配对象；仅在超过慢查询阈值时拼接日志
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+
+    /**
+     * 查询代价限制的触发类型
+     */
+    public enum Guard {
+        TIMEOUT,                    // 超出时间预算，返回了部分结果
+        TOO_MANY_CLAUSES,           // 子句数超过上限，查询被拒绝
+        LEADING_WILDCARD_REJECTED,  // 以通配符开头，查询被拒绝
+        LEADING_WILDCARD_STRIPPED,  // 以通配符开头，去掉开头的通配符后检索
+        FUZZY_EDITS_CAPPED,         // 模糊查询的编辑距离被降低
+        EXPANSION_LIMITED           // 含通配符、前缀或模糊词项，按展开上限只保留得分最高的词项
+    }
+
+    private final Histogram parse = new Histogram();
+    private final Histogram search = new Histogram();
+    private final Histogram hydrate = new Histogram();
+    private final Histogram total = new Histogram();
+    private final Histogram hits = new Histogram();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong slowQueries = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLongArray guards = new AtomicLongArray(Guard.values().length);
+    private volatile long slowQueryThresholdNanos;
+
+    /**
+     * @param slowQueryThresholdMs 总耗时超过该值的查询输出到标准错误，<= 0 表示不记录慢查询
+     */
+    public SearchMetrics(long slowQueryThresholdMs) {
+        setSlowQueryThresholdMs(slowQueryThresholdMs);
+    }
+
+    /**
+     * 记录一次实际执行的查询
+     * @param query 查询串，仅在慢查询时使用
+     * @param parseNanos 构建 Lucene 查询的耗时
+     * @param searchNanos 检索与分面计数的耗时
+     * @param hydrateNanos 读取命中字段的耗时
+     * @param totalHits 命中总数
+     */
+    public void recordQuery(String query, long parseNanos, long searchNanos, long hydrateNanos, long totalHits) {
+        long totalNanos = parseNanos + searchNanos + hydrateNanos;
+        parse.record(parseNanos);
+        search.record(searchNanos);
+        hydrate.record(hydrateNanos);
+        total.record(totalNanos);
+        hits.record(totalHits);
+        long threshold = slowQueryThresholdNanos;
+        if (threshold > 0 && totalNanos >= threshold) {
+            slowQueries.incrementAndGet();
+            System.err.printf("慢查询 %.1f ms（解析 %.1f / 检索 %.1f / 读取 %.1f），命中 %d：%s\n",
+                    totalNanos / 1e6, parseNanos / 1e6, searchNanos / 1e6, hydrateNanos / 1e6, totalHits, query);
+        }
+    }
+
+    /**
+     * 记录一次结果缓存命中，计入总延迟
+     */
+    public void recordCacheHit(long totalNanos) {
+        cacheHits.incrementAndGet();
+        total.record(totalNanos);
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * 记录一次查询代价限制的触发，同一查询中同一类型只记一次
+     */
+    public void recordGuard(Guard guard) {
+        guards.incrementAndGet(guard.ordinal());
+    }
+
+    public long getGuardCount(Guard guard) {
+        return guards.get(guard.ordinal());
+    }
+
+    /**
+     * 注册到平台 MBeanServer，名称为 com.booksearch:type=SearchMetrics,name=name；同名已存在时替换
+     */
+    public void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.booksearch:type=SearchMetrics,name=" + ObjectName.quote(name));
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("注册 JMX 指标失败：" + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getQueryCount() {
+        return search.getCount();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.get();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return getGuardCount(Guard.TIMEOUT);
+    }
+
+    @Override
+    public long getTooManyClausesCount() {
+        return getGuardCount(Guard.TOO_MANY_CLAUSES);
+    }
+
+    @Override
+    public long getLeadingWildcardRejectedCount() {
+        return getGuardCount(Guard.LEADING_WILDCARD_REJECTED);
+    }
+
+    @Override
+    public long getLeadingWildcardStrippedCount() {
+        return getGuardCount(Guard.LEADING_WILDCARD_STRIPPED);
+    }
+
+    @Override
+    public long getFuzzyEditsCappedCount() {
+        return getGuardCount(Guard.FUZZY_EDITS_CAPPED);
+    }
+
+    @Override
+    public long getExpansionLimitedCount() {
+        return getGuardCount(Guard.EXPANSION_LIMITED);
+    }
+
+    @Override
+    public long getSlowQueryThresholdMs() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    @Override
+    public void setSlowQueryThresholdMs(long thresholdMs) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(thresholdMs, 0));
+    }
+
+    @Override
+    public long getTotalP50Micros() {
+        return micros(total.getPercentile(0.50));
+    }
+
+    @Override
+    public long getTotalP95Micros() {
+        return micros(total.getPercentile(0.95));
+    }
+
+    @Override
+    public long getTotalP99Micros() {
+        return micros(total.getPercentile(0.99));
+    }
+
+    @Override
+    public long getTotalMaxMicros() {
+        return micros(total.getMax());
+    }
+
+    @Override
+    public long getParseP99Micros() {
+        return micros(parse.getPercentile(0.99));
+    }
+
+    @Override
+    public long getSearchP99Micros() {
+        return micros(search.getPercentile(0.99));
+    }
+
+    @Override
+    public long getHydrateP99Micros() {
+        return micros(hydrate.getPercentile(0.99));
+    }
+
+    @Override
+    public long getHitsP50() {
+        return hits.getPercentile(0.50);
+    }
+
+    @Override
+    public long getHitsP99() {
+        return hits.getPercentile(0.99);
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("search.queries ").append(getQueryCount()).append('\n');
+        sb.append("search.cache_hits ").append(getCacheHitCount()).append('\n');
+        sb.append("search.slow_queries ").append(getSlowQueryCount()).append('\n');
+        sb.append("search.errors ").append(getErrorCount()).append('\n');
+        for (Guard guard : Guard.values()) {
+            sb.append("search.guard.").append(guard.name().toLowerCase(Locale.ROOT)).append(' ').append(getGuardCount(guard)).append('\n');
+        }
+        appendLatency(sb, "search.latency.total_us", total);
+        appendLatency(sb, "search.latency.parse_us", parse);
+        appendLatency(sb, "search.latency.search_us", search);
+        appendLatency(sb, "search.latency.hydrate_us", hydrate);
+        sb.append(String.format("search.total_hits count=%d mean=%.1f p50=%d p95=%d p99=%d max=%d\n",
+                hits.getCount(), hits.getMean(), hits.getPercentile(0.50), hits.getPercentile(0.95),
+                hits.getPercentile(0.99), hits.getMax()));
+        return sb.toString();
+    }
+
+    private static void appendLatency(StringBuilder sb, String name, Histogram histogram) {
+        sb.append(String.format("%s count=%d mean=%.1f p50=%d p95=%d p99=%d max=%d\n",
+                name, histogram.getCount(), histogram.getMean() / 1000.0,
+                micros(histogram.getPercentile(0.50)), micros(histogram.getPercentile(0.95)),
+                micros(histogram.getPercentile(0.99)), micros(histogram.getMax())));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public void reset() {
+        parse.reset();
+        search.reset();
+        hydrate.reset();
+        total.reset();
+        hits.reset();
+        cacheHits.set(0);
+        slowQueries.set(0);
+        errors.set(0);
+        for (int i = 0; i < guards.length(); i++) {
+            guards.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("查询 %d 次，缓存命中 %d 次，p50 %d us，p99 %d us，慢查询 %d 次，超时 %d 次",
+                getQueryCount(), getCacheHitCount(), getTotalP50Micros(), getTotalP99Micros(), getSlowQueryCount(), getTimeoutCount());
+    }
+}
@@ -0,0 +1,55 @@
+package com.booksearch.metrics;
+
+/**
+ * 通过 JMX 暴露的搜索指标，延迟单位为微秒
+ */
+public interface SearchMetricsMXBean {
+    long getQueryCount();
+
+    long getCacheHitCount();
+
+    long getSlowQueryCount();
+
+    long getErrorCount();
+
+    long getTimeoutCount();
+
+    long getTooManyClausesCount();
+
+    long getLeadingWildcardRejectedCount();
+
+    long getLeadingWildcardStrippedCount();
+
+    long getFuzzyEditsCappedCount();
+
+    long getExpansionLimitedCount();
+
+    long getSlowQueryThresholdMs();
+
+    void setSlowQueryThresholdMs(long thresholdMs);
+
+    long getTotalP50Micros();
+
+    long getTotalP95Micros();
+
+    long getTotalP99Micros();
+
+    long getTotalMaxMicros();
+
+    long getParseP99Micros();
+
+    long getSearchP99Micros();
+
+    long getHydrateP99Micros();
+
+    long getHitsP50();
+
+    long getHitsP99();
+
+    /**
+     * @return 与 /metrics 相同的纯文本指标
+     */
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,94 @@
+package com.booksearch.searcher;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 在调用线程上顺序检索的 IndexSearcher，同时持有同一读取器上按切片并行检索的版本
+ * 由 SearcherManager 在每次刷新时通过 factory 创建，两者共享读取器与查询缓存
+ */
+class BookIndexSearcher extends IndexSearcher {
+    private final Executor executor;
+    private final int maxDocsPerSlice;
+    private final int maxSegmentsPerSlice;
+    private final IndexSearcher parallel;
+
+    BookIndexSearcher(IndexReader reader, Executor executor, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        super(reader);
+        this.executor = executor;
+        this.maxDocsPerSlice = maxDocsPerSlice;
+        this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+        this.parallel = executor == null ? null : newParallel();
+    }
+
+    /**
+     * 创建同一读取器上按切片并行检索的搜索器，切片在构造时计算，每个切片由 executor 中的一个线程检索
+     */
+    private IndexSearcher newParallel() {
+        int maxDocs = maxDocsPerSlice;
+        int maxSegments = maxSegmentsPerSlice;
+        return new IndexSearcher(getIndexReader(), executor) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return slices(leaves, maxDocs, maxSegments);
+            }
+        };
+    }
+
+    /**
+     * @return 并行检索的搜索器，未配置线程池时返回自身
+     */
+    IndexSearcher parallel() {
+        return parallel == null ? this : parallel;
+    }
+
+    /**
+     * 估算查询代价：查询中所有词项的文档频率之和
+     * 不含词项的查询（全部匹配、通配符等）视为代价最大
+     * @param query 已解析的查询
+     * @return 估算的候选文档数
+     */
+    long estimateCost(Query query) throws IOException {
+        Set<Term> terms = new HashSet<>();
+        query.visit(QueryVisitor.termCollector(terms));
+        if (terms.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long cost = 0;
+        for (Term term : terms) {
+            cost += getIndexReader().docFreq(term);
+        }
+        return cost;
+    }
+
+    /**
+     * 为 SearcherManager 创建 BookIndexSearcher
+     */
+    static class Factory extends SearcherFactory {
+        private final Executor executor;
+        private final int maxDocsPerSlice;
+        private final int maxSegmentsPerSlice;
+
+        Factory(Executor executor, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+            this.executor = executor;
+            this.maxDocsPerSlice = maxDocsPerSlice;
+            this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+        }
+
+        @Override
+        public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+            return new BookIndexSearcher(reader, executor, maxDocsPerSlice, maxSegmentsPerSlice);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.booksearch.searcher;
+
+import com.booksearch.metrics.SearchMetrics;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.TermToBytesRefAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 图书查询解析器，每个查询新建一个实例
+ * 不记录位置的字段上的短语降级为所有词项都必须出现，并限制通配符、模糊与多词项查询的代价
+ */
+class BookQueryParser extends MultiFieldQueryParser {
+    private final Set<String> positionlessFields;
+    private final SearcherConfig config;
+    private final SearchMetrics metrics;
+    // 本次解析中已触发的限制，同一查询中同一类型只计一次
+    private final Set<SearchMetrics.Guard> triggered = EnumSet.noneOf(SearchMetrics.Guard.class);
+
+    /**
+     * @param fields 未指定字段的词项在这些字段上检索
+     * @param analyzer 查询分析器
+     * @param positionlessFields 索引中不记录位置的字段
+     * @param config 查询代价限制
+     * @param metrics 记录各项限制的触发次数
+     */
+    BookQueryParser(String[] fields, Analyzer analyzer, Set<String> positionlessFields,
+                    SearcherConfig config, SearchMetrics metrics) {
+        super(fields, analyzer);
+        this.positionlessFields = positionlessFields;
+        this.config = config;
+        this.metrics = metrics;
+        // 开头的通配符在 getWildcardQuery 中按策略处理，不使用父类的统一报错
+        setAllowLeadingWildcard(true);
+        setFuzzyPrefixLength(config.getFuzzyPrefixLength());
+        setMultiTermRewriteMethod(new MultiTermQuery.TopTermsBlendedFreqScoringRewrite(config.getMaxExpansions()));
+    }
+
+    /**
+     * 解析查询并检查叶子子句数
+     * @throws ParseException 语法错误，或查询被代价限制拒绝
+     */
+    @Override
+    public Query parse(String query) throws ParseException {
+        Query parsed = super.parse(query);
+        ClauseCounter counter = new ClauseCounter();
+        parsed.visit(counter);
+        if (counter.multiTerm) {
+            trigger(SearchMetrics.Guard.EXPANSION_LIMITED);
+        }
+        if (counter.clauses > config.getMaxClauses()) {
+            trigger(SearchMetrics.Guard.TOO_MANY_CLAUSES);
+            throw new ParseException(String.format("查询过于复杂：展开后有 %d 个子句，上限为 %d", counter.clauses, config.getMaxClauses()));
+        }
+        return parsed;
+    }
+
+    @Override
+    protected Query getWildcardQuery(String field, String termStr) throws ParseException {
+        if ("*".equals(field) && "*".equals(termStr)) {
+            return super.getWildcardQuery(field, termStr);
+        }
+        if (!termStr.startsWith("*") && !termStr.startsWith("?")) {
+            return super.getWildcardQuery(field, termStr);
+        }
+        // 以通配符开头的词项无法利用词典的前缀结构，需要遍历字段的全部词项
+        String rest = termStr.replaceFirst("^[*?]+", "");
+        if (config.getLeadingWildcard() == SearcherConfig.LeadingWildcard.REJECT || rest.isEmpty()) {
+            trigger(SearchMetrics.Guard.LEADING_WILDCARD_REJECTED);
+            throw new ParseException("不支持以通配符开头的查询：" + termStr);
+        }
+        trigger(SearchMetrics.Guard.LEADING_WILDCARD_STRIPPED);
+        return rest.contains("*") || rest.contains("?")
+                ? getWildcardQuery(field, rest)
+                : getFieldQuery(field, rest, false);
+    }
+
+    @Override
+    protected Query getRegexpQuery(String field, String termStr) throws ParseException {
+        // 以任意字符开头的正则与开头的通配符一样需要遍历全部词项，无法安全地改写
+        if (termStr.startsWith(".")) {
+            trigger(SearchMetrics.Guard.LEADING_WILDCARD_REJECTED);
+            throw new ParseException("不支持以任意字符开头的正则查询：" + termStr);
+        }
+        return super.getRegexpQuery(field, termStr);
+    }
+
+    @Override
+    protected Query getFuzzyQuery(String field, String termStr, float minSimilarity) throws ParseException {
+        int edits = FuzzyQuery.floatToEdits(minSimilarity, termStr.codePointCount(0, termStr.length()));
+        if (edits <= config.getMaxFuzzyEdits()) {
+            return super.getFuzzyQuery(field, termStr, minSimilarity);
+        }
+        trigger(SearchMetrics.Guard.FUZZY_EDITS_CAPPED);
+        return config.getMaxFuzzyEdits() <= 0
+                ? getFieldQuery(field, termStr, false)
+                : super.getFuzzyQuery(field, termStr, config.getMaxFuzzyEdits());
+    }
+
+    @Override
+    protected Query newFuzzyQuery(Term term, float minimumSimilarity, int prefixLength) {
+        String text = term.text();
+        int edits = FuzzyQuery.floatToEdits(minimumSimilarity, text.codePointCount(0, text.length()));
+        return new FuzzyQuery(term, edits, prefixLength, config.getMaxExpansions(), FuzzyQuery.defaultTranspositions);
+    }
+
+    @Override
+    protected Query analyzePhrase(String field, TokenStream stream, int slop) throws IOException {
+        if (!positionlessFields.contains(field)) {
+            return super.analyzePhrase(field, stream, slop);
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        TermToBytesRefAttribute termAtt = stream.getAttribute(TermToBytesRefAttribute.class);
+        stream.reset();
+        while (stream.incrementToken()) {
+            builder.add(new TermQuery(new Term(field, BytesRef.deepCopyOf(termAtt.getBytesRef()))), BooleanClause.Occur.MUST);
+        }
+        return builder.build();
+    }
+
+    private void trigger(SearchMetrics.Guard guard) {
+        if (triggered.add(guard)) {
+            metrics.recordGuard(guard);
+        }
+    }
+
+    /**
+     * 统计叶子子句数：每个词项、每个多词项查询、每个其他叶子查询各计一个
+     */
+    private static class ClauseCounter extends QueryVisitor {
+        private int clauses;
+        private boolean multiTerm;
+
+        @Override
+        public void consumeTerms(Query query, Term... terms) {
+            clauses += terms.length;
+        }
+
+        @Override
+        public void consumeTermsMatching(Query query, String field, Supplier<ByteRunAutomaton> automaton) {
+            clauses++;
+            multiTerm = true;
+        }
+
+        @Override
+        public void visitLeaf(Query query) {
+            clauses++;
+        }
+    }
+}
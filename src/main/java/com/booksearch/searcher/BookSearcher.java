@@ -1,108 +1,571 @@
 package com.booksearch.searcher;
 
+import com.booksearch.metrics.SearchMetrics;
 import com.booksearch.model.Book;
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import com.booksearch.store.BookStore;
+import com.booksearch.util.BookDocuments;
+import com.booksearch.util.BookFields;
+import com.booksearch.util.BookSorts;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.facet.FacetsCollector;
 import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.QueryTimeoutImpl;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-import static com.booksearch.util.BookSerializer.*;
-import static com.booksearch.util.Constants.*;
+import static com.booksearch.util.Constants.MAX_SEARCH_RESULTS;
 
 public class BookSearcher {
 
-    private static final List<Book> books;
-    private static final Map<String, Book> isbnToBookMap;
+    // 搜索结果列表只需要的短字段，长文本字段在查看详情时才读取
+    private static final Set<String> SUMMARY_FIELDS = Set.of(
+            "isbn", "title", "author", "publisher", "publicationDate", "salePrice", "originalPrice", "category", "language");
+    private static final Set<String> ISBN_FIELD = Set.of("isbn");
 
-    static {
+    // 每次搜索从 manager 获取当前的 IndexSearcher，用完后归还；刷新后旧读取器在无人引用时关闭
+    private final SearcherManager manager;
+    // 从目录打开时由本搜索器关闭的索引目录，近实时搜索器为 null
+    private final Directory directory;
+    // 分析器、刷新线程与切片线程池，分片搜索时由所有分片共用
+    private final SearcherResources resources;
+    private final boolean ownsResources;
+    // 本搜索器在刷新线程上的定期刷新任务，未启用时为 null
+    private final ScheduledFuture<?> refreshTask;
+    private final QueryResultCache resultCache;
+    private final FacetCounter facetCounter = new FacetCounter();
+    private final SearcherConfig.ParallelMode parallelMode;
+    private final double expensiveQueryRatio;
+    // 二进制书籍存储，命中后从映射文件读取字段；未配置时为 null
+    private final BookStore bookStore;
+    private final SearchMetrics metrics;
+
+    private final SearcherConfig config;
+    private final SearcherConfig.QueryMode queryMode;
+    // 当前读取器的所有段都含有合并字段时为 true，每次刷新后重新检查
+    private volatile boolean useCombinedField;
+    // 当前读取器中任一段不记录位置的字段，这些字段上的短语查询需要降级
+    private volatile Set<String> positionlessFields = Set.of();
+
+    /**
+     * 使用默认配置初始化搜索器
+     */
+    public BookSearcher() throws IOException {
+        this(new SearcherConfig());
+    }
+
+    /**
+     * 从索引目录初始化搜索器，后台线程定期检查并加载已提交的新版本
+     * @param config 索引目录、刷新间隔与并行检索参数
+     */
+    public BookSearcher(SearcherConfig config) throws IOException {
+        this(config, config.getIndexDir());
+    }
+
+    /**
+     * 从指定索引目录初始化搜索器，分片搜索时每个分片各用一个目录
+     * @param config 刷新间隔与并行检索参数
+     * @param indexDir 索引目录，覆盖 config 中的目录
+     */
+    public BookSearcher(SearcherConfig config, String indexDir) throws IOException {
+        this(config, new SearcherResources(config), true, openDirectory(indexDir, config.isPreload()));
+    }
+
+    /**
+     * 使用外部提供的分析器与线程初始化搜索器，分片搜索时各分片共用一份
+     * @param config 刷新间隔与并行检索参数
+     * @param indexDir 索引目录，覆盖 config 中的目录
+     * @param resources 共用的资源，由调用方在所有搜索器关闭后释放
+     */
+    BookSearcher(SearcherConfig config, String indexDir, SearcherResources resources) throws IOException {
+        this(config, resources, false, openDirectory(indexDir, config.isPreload()));
+    }
+
+    private BookSearcher(SearcherConfig config, SearcherResources resources, boolean ownsResources,
+                         Directory directory) throws IOException {
+        this(config, resources, ownsResources, directory, factory -> new SearcherManager(directory, factory));
+    }
+
+    /**
+     * 打开索引目录；preload 时使用 MMapDirectory 并在打开每个文件时预读全部页面
+     */
+    private static Directory openDirectory(String indexDir, boolean preload) throws IOException {
+        if (!preload) {
+            return FSDirectory.open(Paths.get(indexDir));
+        }
+        MMapDirectory directory = new MMapDirectory(Paths.get(indexDir));
+        directory.setPreload(MMapDirectory.ALL_FILES);
+        return directory;
+    }
+
+    /**
+     * 与 BookIndexer 共享 IndexWriter 初始化近实时搜索器，未提交的书籍在下次刷新后即可被搜到
+     * @param writer BookIndexer.getWriter() 返回的 IndexWriter
+     * @param config 刷新间隔与并行检索参数
+     */
+    public BookSearcher(IndexWriter writer, SearcherConfig config) throws IOException {
+        this(config, new SearcherResources(config), true, null, factory -> new SearcherManager(writer, factory));
+    }
+
+    /**
+     * @param directory 由搜索器打开、需在关闭时一并关闭的索引目录；近实时搜索器的目录属于 IndexWriter，传 null
+     */
+    private BookSearcher(SearcherConfig config, SearcherResources resources, boolean ownsResources, Directory directory,
+                         IOUtils.IOFunction<SearcherFactory, SearcherManager> opener) throws IOException {
+        this.parallelMode = config.getParallelMode();
+        this.expensiveQueryRatio = config.getExpensiveQueryRatio();
+        this.resources = resources;
+        this.ownsResources = ownsResources;
+        this.directory = directory;
+        SearcherManager opened = null;
         try {
-            books = deserializeAll(new File(FILE_PATH));
-            isbnToBookMap = books.stream()
-                    .collect(Collectors.toMap(Book::getIsbn, book -> book, (a, _) -> a));
-        } catch (Exception e) {
-            throw new RuntimeException("初始化书籍数据失败", e);
+            opened = opener.apply(new BookIndexSearcher.Factory(
+                    resources.searchExecutor, config.getMaxDocsPerSlice(), config.getMaxSegmentsPerSlice()));
+            this.bookStore = config.getBookStoreDir() == null ? null : BookStore.open(Path.of(config.getBookStoreDir()));
+        } catch (IOException | RuntimeException e) {
+            // 打开失败时释放已打开的读取器、目录和自有线程
+            IOUtils.closeWhileHandlingException(opened, directory);
+            if (ownsResources) {
+                resources.close();
+            }
+            throw e;
         }
+        this.manager = opened;
+        this.resultCache = new QueryResultCache(config.getResultCacheSize());
+        this.metrics = new SearchMetrics(config.getSlowQueryMs());
+        this.config = config;
+        this.queryMode = config.getQueryMode();
+        inspectFields();
+        manager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) throws IOException {
+                if (didRefresh) {
+                    inspectFields();
+                }
+            }
+        });
+        this.refreshTask = resources.refresher == null ? null : resources.refresher.scheduleWithFixedDelay(this::refreshQuietly,
+                config.getMaxStalenessMs(), config.getMaxStalenessMs(), TimeUnit.MILLISECONDS);
     }
 
-    private final IndexReader reader;
-    private final IndexSearcher searcher;
-    private final Analyzer analyzer;
+    /**
+     * 执行若干轮预热查询，预热不计入缓存与指标
+     * @param queries 预热查询串，解析失败的跳过
+     * @param rounds 轮数
+     */
+    public void warmUp(List<String> queries, int rounds) throws IOException {
+        for (int round = 0; round < rounds; round++) {
+            for (String query : queries) {
+                SearchRequest request = new SearchRequest(query, MAX_SEARCH_RESULTS);
+                try {
+                    search(request);
+                    request.setFacets(true);
+                    search(request);
+                } catch (ParseException e) {
+                    System.err.println("预热查询无法解析：" + query);
+                }
+            }
+            resultCache.clear();
+        }
+        metrics.reset();
+    }
 
-    private final String[] SEARCH_FIELDS = new String[]{"title", "author", "contents", "bookDescription", "editorRecommendation"};
+    /**
+     * 检查当前索引各段是否都包含合并字段，并记录不含位置信息的字段
+     */
+    private void inspectFields() throws IOException {
+        IndexSearcher searcher = manager.acquire();
+        try {
+            boolean combined = queryMode == SearcherConfig.QueryMode.COMBINED;
+            boolean missingCombined = false;
+            Set<String> positionless = new HashSet<>();
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                if (leaf.reader().getFieldInfos().fieldInfo(BookFields.ALL) == null) {
+                    missingCombined = true;
+                }
+                for (FieldInfo info : leaf.reader().getFieldInfos()) {
+                    IndexOptions options = info.getIndexOptions();
+                    if (options != IndexOptions.NONE && options.compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) < 0) {
+                        positionless.add(info.name);
+                    }
+                }
+            }
+            if (combined && missingCombined) {
+                System.err.println("索引中缺少合并字段 " + BookFields.ALL + "，使用多字段检索，重建索引后可恢复");
+            }
+            positionlessFields = Set.copyOf(positionless);
+            useCombinedField = combined && !missingCombined;
+        } finally {
+            manager.release(searcher);
+        }
+    }
 
     /**
-     * 初始化搜索器
+     * 立即检查索引是否有新版本，有则切换，阻塞直到完成
      */
-    public BookSearcher() throws IOException {
-        Directory dir = FSDirectory.open(Paths.get(INDEX_FILE_DIR));
-        this.reader = DirectoryReader.open(dir);
-        this.searcher = new IndexSearcher(reader);
-        this.analyzer = new SmartChineseAnalyzer();
+    public void refresh() throws IOException {
+        manager.maybeRefreshBlocking();
+    }
+
+    private void refreshQuietly() {
+        try {
+            manager.maybeRefresh();
+        } catch (IOException e) {
+            System.err.println("刷新索引读取器失败：" + e.getMessage());
+        }
     }
 
     /**
      * 执行书籍搜索
+     * 返回的 Book 只包含摘要字段，完整信息通过 findByIsbn 获取
      */
     public List<Book> search(String queryString, int limit) throws ParseException, IOException {
-        MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer);
-        Query query = parser.parse(queryString);
-        TopDocs results = searcher.search(query, limit);
-        ScoreDoc[] hits = results.scoreDocs;
-        System.out.printf("找到 %d 个匹配项\n", results.totalHits.value);
-
-        List<Book> resultBooks = new ArrayList<>();
-        for (ScoreDoc hit : hits) {
-            Document doc = searcher.storedFields().document(hit.doc);
-            Book book = documentToBook(doc);
+        return searchHits(queryString, limit).getBooks();
+    }
+
+    /**
+     * 执行书籍搜索并返回带得分的命中
+     * @param queryString 查询串
+     * @param limit 最多返回的命中数
+     * @return 搜索结果
+     */
+    public SearchResult searchHits(String queryString, int limit) throws ParseException, IOException {
+        return search(new SearchRequest(queryString, limit));
+    }
+
+    /**
+     * 按指定方式排序搜索，例如 BookSorts.PRICE_ASC（最便宜优先）或 BookSorts.NEWEST（最新优先）
+     * 索引按出版日期预排序时，NEWEST 查询收集满 limit 条后即可提前终止
+     * @param queryString 查询串
+     * @param sort 排序方式
+     * @param limit 最多返回的命中数
+     * @return 搜索结果，非相关度排序时得分为 NaN
+     */
+    public SearchResult search(String queryString, Sort sort, int limit) throws ParseException, IOException {
+        SearchRequest request = new SearchRequest(queryString, limit);
+        request.setSort(sort);
+        return search(request);
+    }
+
+    /**
+     * 执行结构化搜索：关键词查询叠加类别、售价、出版年份过滤，可选返回分面计数
+     * 代价过高的查询语法以 ParseException 拒绝
+     * @param request 搜索请求
+     * @return 搜索结果
+     */
+    public SearchResult search(SearchRequest request) throws ParseException, IOException {
+        long start = System.nanoTime();
+        String cacheKey = request.cacheKey();
+        IndexSearcher searcher = manager.acquire();
+        try {
+            long generation = ((DirectoryReader) searcher.getIndexReader()).getVersion();
+            SearchResult cached = resultCache.get(cacheKey, generation);
+            if (cached != null) {
+                metrics.recordCacheHit(System.nanoTime() - start);
+                return cached;
+            }
+
+            Query parsedQuery = buildQuery(request);
+            long parsed = System.nanoTime();
+            IndexSearcher runner = chooseSearcher((BookIndexSearcher) searcher, parsedQuery);
+            Query query = timeLimited(parsedQuery, start);
+            Sort sort = request.getSort() == null ? BookSorts.RELEVANCE : request.getSort();
+            boolean byRelevance = sort.equals(BookSorts.RELEVANCE);
+            boolean paged = request.isPaginate() || request.getCursor() != null;
+            TopDocs results;
+            Map<String, Map<String, Long>> facets = Map.of();
+            if (paged) {
+                // 基于游标的分页：每页只收集 limit 条，代价与页码无关
+                sort = BookSorts.forPaging(sort);
+                FieldDoc after = request.getCursor() == null ? null
+                        : SearchCursor.decode(request.getCursor(), sort, generation, searcher.getIndexReader().maxDoc());
+                if (request.isFacets()) {
+                    FacetsCollector facetsCollector = new FacetsCollector();
+                    results = FacetsCollector.searchAfter(runner, after, query, request.getLimit(), sort, byRelevance, facetsCollector);
+                    facets = facetCounter.count(runner, facetsCollector);
+                } else {
+                    results = runner.searchAfter(after, query, request.getLimit(), sort, byRelevance);
+                }
+            } else if (request.isFacets()) {
+                FacetsCollector facetsCollector = new FacetsCollector();
+                results = byRelevance
+                        ? FacetsCollector.search(runner, query, request.getLimit(), facetsCollector)
+                        : FacetsCollector.search(runner, query, request.getLimit(), sort, facetsCollector);
+                facets = facetCounter.count(runner, facetsCollector);
+            } else {
+                // 按字段排序时 IndexSearcher 只精确统计前 1000 个命中，索引排序与查询排序一致时可提前终止
+                results = byRelevance
+                        ? runner.search(query, request.getLimit())
+                        : runner.search(query, request.getLimit(), sort);
+            }
+            ScoreDoc[] hits = results.scoreDocs;
+            long searched = System.nanoTime();
+            boolean partial = TimeLimitedQuery.timedOut(query);
+            if (partial) {
+                metrics.recordGuard(SearchMetrics.Guard.TIMEOUT);
+            }
+
+            List<SearchHit> searchHits = new ArrayList<>();
+            for (ScoreDoc hit : hits) {
+                SearchHit searchHit = toSearchHit(searcher, hit);
+                if (searchHit != null) {
+                    searchHits.add(searchHit);
+                }
+            }
+
+            // 部分结果不返回游标
+            String nextCursor = null;
+            if (paged && !partial && hits.length == request.getLimit() && hits.length > 0) {
+                nextCursor = SearchCursor.encode((FieldDoc) hits[hits.length - 1], sort, generation);
+            }
+
+            SearchResult result = new SearchResult(results.totalHits.value, List.copyOf(searchHits), generation, facets, nextCursor, partial);
+            // 部分结果不缓存
+            if (!partial) {
+                resultCache.put(cacheKey, result);
+            }
+            metrics.recordQuery(request.getQuery(), parsed - start, searched - parsed, System.nanoTime() - searched, results.totalHits.value);
+            return result;
+        } catch (ParseException | IOException | RuntimeException e) {
+            metrics.recordError();
+            throw e;
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    /**
+     * 读取命中文档的摘要字段，书籍存储与索引版本相同时从存储读取，否则读取索引的存储字段
+     * @param searcher 产生该命中的搜索器
+     * @param hit 命中
+     * @return 搜索命中，文档缺少 ISBN 时返回 null
+     */
+    SearchHit toSearchHit(IndexSearcher searcher, ScoreDoc hit) throws IOException {
+        if (storeMatches(searcher)) {
+            String isbn = searcher.storedFields().document(hit.doc, ISBN_FIELD).get("isbn");
+            Book book = isbn == null ? null : bookStore.getSummary(isbn);
             if (book != null) {
-                resultBooks.add(book);
+                return new SearchHit(isbn, hit.score, book);
+            }
+        }
+        Document doc = searcher.storedFields().document(hit.doc, SUMMARY_FIELDS);
+        Book book = BookDocuments.toBook(doc);
+        return book == null ? null : new SearchHit(book.getIsbn(), hit.score, book);
+    }
+
+    /**
+     * @return 书籍存储是否对应该搜索器所读的索引版本，存储是静态快照，版本不同时其中的字段可能已过时
+     */
+    private boolean storeMatches(IndexSearcher searcher) {
+        return bookStore != null && searcher.getIndexReader() instanceof DirectoryReader reader
+                && reader.getVersion() == bookStore.getIndexVersion();
+    }
+
+    /**
+     * 获取当前的搜索器，使用完毕后必须调用 release
+     */
+    IndexSearcher acquire() throws IOException {
+        return manager.acquire();
+    }
+
+    /**
+     * 归还 acquire 获取的搜索器
+     */
+    void release(IndexSearcher searcher) throws IOException {
+        manager.release(searcher);
+    }
+
+    /**
+     * 为本次查询设置时间预算，从 startNanos 起算，解析耗时也计入
+     * @param query 已解析的查询
+     * @param startNanos 查询开始时间
+     * @return 带时间预算的查询，未配置预算时返回 query
+     */
+    Query timeLimited(Query query, long startNanos) {
+        if (config.getTimeoutMs() <= 0) {
+            return query;
+        }
+        long remainingMs = config.getTimeoutMs() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new TimeLimitedQuery(query, new QueryTimeoutImpl(Math.max(remainingMs, 1)));
+    }
+
+    /**
+     * 根据并行模式选择顺序或并行检索的搜索器
+     * @param searcher 当前获取的搜索器
+     * @param query 已解析的查询
+     * @return 执行该查询的搜索器
+     */
+    private IndexSearcher chooseSearcher(BookIndexSearcher searcher, Query query) throws IOException {
+        return switch (parallelMode) {
+            case OFF -> searcher;
+            case ALWAYS -> searcher.parallel();
+            case EXPENSIVE -> {
+                long threshold = (long) (searcher.getIndexReader().maxDoc() * expensiveQueryRatio);
+                yield searcher.estimateCost(query) >= threshold ? searcher.parallel() : searcher;
+            }
+        };
+    }
+
+    /**
+     * 将搜索请求转换为 Lucene 查询，过滤条件以 FILTER 子句加入，不影响相关度得分
+     * @param request 搜索请求
+     * @return Lucene 查询
+     */
+    Query buildQuery(SearchRequest request) throws ParseException {
+        String queryString = request.getQuery() == null ? "" : request.getQuery().trim();
+        Query textQuery;
+        if (queryString.isEmpty()) {
+            textQuery = new MatchAllDocsQuery();
+        } else {
+            // 合并字段上每个词项一个子句；多字段时每个词项展开为 SEARCH_FIELDS.length 个子句
+            String[] fields = useCombinedField ? new String[]{BookFields.ALL} : BookFields.SEARCH_FIELDS;
+            QueryParser parser = new BookQueryParser(fields, resources.analyzer, positionlessFields, config, metrics);
+            textQuery = parser.parse(queryString);
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(textQuery, BooleanClause.Occur.MUST);
+        boolean filtered = false;
+
+        if (!request.getCategories().isEmpty()) {
+            BooleanQuery.Builder categories = new BooleanQuery.Builder();
+            for (String category : request.getCategories()) {
+                categories.add(new TermQuery(new Term("category", category)), BooleanClause.Occur.SHOULD);
             }
+            builder.add(categories.build(), BooleanClause.Occur.FILTER);
+            filtered = true;
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            double min = request.getMinPrice() == null ? Double.NEGATIVE_INFINITY : request.getMinPrice();
+            double max = request.getMaxPrice() == null ? Double.POSITIVE_INFINITY : request.getMaxPrice();
+            builder.add(DoublePoint.newRangeQuery("salePrice", min, max), BooleanClause.Occur.FILTER);
+            filtered = true;
+        }
+        if (request.getFromYear() != null || request.getToYear() != null) {
+            long from = request.getFromYear() == null ? Long.MIN_VALUE
+                    : LocalDate.of(request.getFromYear(), 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            long to = request.getToYear() == null ? Long.MAX_VALUE
+                    : LocalDate.of(request.getToYear() + 1, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1;
+            builder.add(LongPoint.newRangeQuery("publicationDate", from, to), BooleanClause.Occur.FILTER);
+            filtered = true;
+        }
+        return filtered ? builder.build() : textQuery;
+    }
+
+    /**
+     * @return 当前读取器中的书籍数
+     */
+    public int numDocs() throws IOException {
+        IndexSearcher searcher = manager.acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            manager.release(searcher);
         }
+    }
 
-        return resultBooks;
+    /**
+     * @return 查询结果缓存，可读取命中/未命中计数
+     */
+    public QueryResultCache getResultCache() {
+        return resultCache;
     }
 
     /**
-     * 从 Lucene Document 中提取 ISBN，然后从内存 Map 中获取完整的 Book 对象。
-     * @param doc Lucene Document
-     * @return 完整的 Book 对象
+     * @return 搜索路径的分阶段计时与命中数分布
      */
-    private Book documentToBook(Document doc) {
-        String isbn = doc.get("isbn");
-        if (isbn == null) {
-            System.err.println("Lucene Document 缺少 ISBN 字段，无法恢复完整的 Book 对象");
-            return null;
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 按 ISBN 读取书籍的全部字段，供详情展示使用
+     * @param isbn 书籍 ISBN
+     * @return 完整的 Book 对象，找不到时返回 null
+     */
+    public Book findByIsbn(String isbn) throws IOException {
+        Book book = findByIsbnQuietly(isbn);
+        if (book == null) {
+            System.err.println("ISBN " + isbn + " 在索引中找不到对应书籍");
         }
-        Book fullBook = isbnToBookMap.get(isbn);
-        if (fullBook == null) {
-            System.err.println("ISBN " + isbn + " 在内存数据集中找不到对应书籍");
-            return null;
+        return book;
+    }
+
+    /**
+     * 按 ISBN 读取书籍的全部字段，找不到时不输出提示
+     */
+    Book findByIsbnQuietly(String isbn) throws IOException {
+        IndexSearcher searcher = manager.acquire();
+        try {
+            TopDocs results = searcher.search(new TermQuery(new Term("isbn", isbn)), 1);
+            if (results.scoreDocs.length == 0) {
+                return null;
+            }
+            // 以索引判断书籍是否存在，存储中的内容只在版本与索引一致时用于读取字段
+            Book book = storeMatches(searcher) ? bookStore.get(isbn) : null;
+            return book != null ? book : BookDocuments.toBook(searcher.storedFields().document(results.scoreDocs[0].doc));
+        } finally {
+            manager.release(searcher);
         }
-        return fullBook;
     }
 
     /**
-     * 关闭 IndexReader
+     * 停止后台刷新并关闭 IndexReader
      */
     public void close() throws IOException {
-        reader.close();
-        System.out.println("索引读取器已关闭");
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+        manager.close();
+        if (directory != null) {
+            directory.close();
+        }
+        if (ownsResources) {
+            resources.close();
+        }
+        if (bookStore != null) {
+            bookStore.close();
+        }
+        System.err.println("索引读取器已关闭");
     }
-}
\ No newline at end of file
+}
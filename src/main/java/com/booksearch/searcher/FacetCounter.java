@@ -0,0 +1,102 @@
+package com.booksearch.searcher;
+
+import com.booksearch.util.BookFacets;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.range.DoubleRangeFacetCounts;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 根据 FacetsCollector 收集到的命中文档计算分面计数
+ * 计数只读取 doc values，开销与命中数成正比，不需要恢复 Book
+ */
+class FacetCounter {
+    private static final int MAX_FACET_VALUES = 100;
+
+    // 每个读取器的 SortedSetDocValues 序号映射，构建较慢，按读取器缓存，读取器关闭时移除
+    private final Map<IndexReader.CacheKey, SortedSetDocValuesReaderState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 计算类别、售价区间、出版年份的分面计数
+     * @param searcher 执行查询的搜索器
+     * @param collector 已收集命中文档的 FacetsCollector
+     * @return 维度 -> (取值 -> 命中数)
+     */
+    Map<String, Map<String, Long>> count(IndexSearcher searcher, FacetsCollector collector) throws IOException {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+
+        SortedSetDocValuesReaderState state = stateFor(searcher.getIndexReader());
+        if (state != null) {
+            Facets sortedSetCounts = new SortedSetDocValuesFacetCounts(state, collector);
+            facets.put(BookFacets.CATEGORY, topChildren(sortedSetCounts, BookFacets.CATEGORY));
+            // 年份按时间倒序展示
+            Map<String, Long> years = topChildren(sortedSetCounts, BookFacets.YEAR);
+            Map<String, Long> sortedYears = new LinkedHashMap<>();
+            years.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByKey(Comparator.reverseOrder()))
+                    .forEach(e -> sortedYears.put(e.getKey(), e.getValue()));
+            facets.put(BookFacets.YEAR, sortedYears);
+        }
+
+        Facets priceCounts = new DoubleRangeFacetCounts(BookFacets.PRICE, collector, BookFacets.PRICE_RANGES);
+        facets.put(BookFacets.PRICE, toMap(priceCounts.getAllChildren(BookFacets.PRICE)));
+        return facets;
+    }
+
+    private SortedSetDocValuesReaderState stateFor(IndexReader reader) throws IOException {
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return buildState(reader);
+        }
+        IndexReader.CacheKey key = cacheHelper.getKey();
+        SortedSetDocValuesReaderState state = states.get(key);
+        if (state == null) {
+            state = buildState(reader);
+            if (state != null && states.putIfAbsent(key, state) == null) {
+                cacheHelper.addClosedListener(states::remove);
+            }
+        }
+        return state;
+    }
+
+    private static SortedSetDocValuesReaderState buildState(IndexReader reader) throws IOException {
+        try {
+            return new DefaultSortedSetDocValuesReaderState(reader, BookFacets.CONFIG);
+        } catch (IllegalArgumentException e) {
+            // 索引为空或由旧版本构建，没有分面字段
+            return null;
+        }
+    }
+
+    private static Map<String, Long> topChildren(Facets facets, String dim) throws IOException {
+        try {
+            return toMap(facets.getTopChildren(MAX_FACET_VALUES, dim));
+        } catch (IllegalArgumentException e) {
+            // 当前读取器中没有任何文档含有该维度
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private static Map<String, Long> toMap(FacetResult result) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (result == null) {
+            return counts;
+        }
+        for (LabelAndValue labelValue : result.labelValues) {
+            counts.put(labelValue.label, labelValue.value.longValue());
+        }
+        return counts;
+    }
+}
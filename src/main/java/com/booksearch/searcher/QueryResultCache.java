@@ -0,0 +1,126 @@
+package com.booksearch.searcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界 LRU 查询结果缓存
+ * 键为规范化的查询串与结果数，值为命中列表；读取器版本变化后旧条目自动失效
+ */
+public class QueryResultCache {
+    private final int maxEntries;
+    private final Map<String, SearchResult> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxEntries 最大缓存条目数，<= 0 表示禁用缓存
+     */
+    public QueryResultCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        // accessOrder = true，插入新条目时淘汰最久未访问的条目
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SearchResult> eldest) {
+                return size() > QueryResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 生成缓存键：去除首尾空白并合并连续空白
+     * 不统一大小写：QueryParser 的 AND/OR/NOT/TO 区分大小写，x AND y 与 x and y 是不同的查询
+     * @param queryString 原始查询串
+     * @param limit 结果数
+     * @return 缓存键
+     */
+    public static String key(String queryString, int limit) {
+        String normalized = queryString.trim().replaceAll("\\s+", " ");
+        return normalized + '\u0000' + limit;
+    }
+
+    /**
+     * 查找缓存结果
+     * @param key 缓存键
+     * @param generation 当前读取器版本
+     * @return 缓存的结果，未命中或已过期时返回 null
+     */
+    public SearchResult get(String key, long generation) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        SearchResult result;
+        synchronized (entries) {
+            result = entries.get(key);
+            if (result != null && result.getGeneration() != generation) {
+                entries.remove(key);
+                invalidations.incrementAndGet();
+                result = null;
+            }
+        }
+        if (result == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * 写入缓存
+     * @param key 缓存键
+     * @param result 搜索结果
+     */
+    public void put(String key, SearchResult result) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, result);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return 命中率，尚无请求时为 0
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryResultCache[size=%d, hits=%d, misses=%d, invalidations=%d, hitRate=%.2f%%]",
+                size(), getHitCount(), getMissCount(), getInvalidationCount(), getHitRate() * 100);
+    }
+}
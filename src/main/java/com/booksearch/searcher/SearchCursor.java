@@ -0,0 +1,102 @@
+package com.booksearch.searcher;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * searchAfter 分页游标的编码与解码
+ * 游标记录上一页最后一条命中的排序值、文档号和读取器版本，对客户端不透明
+ */
+class SearchCursor {
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 编码游标
+     * @param last 上一页最后一条命中
+     * @param sort 本次搜索使用的排序
+     * @param generation 读取器版本
+     * @return URL 安全的游标字符串
+     */
+    static String encode(FieldDoc last, Sort sort, long generation) {
+        StringBuilder sb = new StringBuilder(VERSION)
+                .append(SEPARATOR).append(Integer.toHexString(sort.toString().hashCode()))
+                .append(SEPARATOR).append(generation)
+                .append(SEPARATOR).append(last.doc);
+        for (Object value : last.fields) {
+            sb.append(SEPARATOR).append(encodeValue(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标字符串
+     * @param sort 本次搜索使用的排序，必须与生成游标时相同
+     * @param generation 当前读取器版本，版本不同时不再使用文档号
+     * @param maxDoc 当前读取器的 maxDoc
+     * @return searchAfter 使用的 FieldDoc
+     */
+    static FieldDoc decode(String cursor, Sort sort, long generation, int maxDoc) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (parts.length < 4 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (!Integer.toHexString(sort.toString().hashCode()).equals(parts[1])) {
+            throw new IllegalArgumentException("分页游标与当前排序方式不匹配");
+        }
+        int fieldCount = parts.length - 4;
+        if (fieldCount != sort.getSort().length) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        Object[] fields = new Object[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = decodeValue(parts[i + 4]);
+        }
+        // 版本变化后文档号失效，取当前最大文档号，使排序值完全相同的命中（即上一页最后一本书）被跳过
+        int doc = Long.parseLong(parts[2]) == generation ? Integer.parseInt(parts[3]) : Math.max(0, maxDoc - 1);
+        float score = fields.length > 0 && fields[0] instanceof Float f ? f : Float.NaN;
+        return new FieldDoc(doc, score, fields);
+    }
+
+    private static String encodeValue(Object value) {
+        return switch (value) {
+            case null -> "N";
+            case Float f -> "F" + Float.floatToIntBits(f);
+            case Double d -> "D" + Double.doubleToLongBits(d);
+            case Long l -> "L" + l;
+            case Integer i -> "I" + i;
+            case BytesRef b -> "B" + Base64.getUrlEncoder().withoutPadding().encodeToString(BytesRef.deepCopyOf(b).bytes);
+            default -> throw new IllegalArgumentException("不支持的排序值类型：" + value.getClass());
+        };
+    }
+
+    private static Object decodeValue(String encoded) {
+        if (encoded.isEmpty()) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        String body = encoded.substring(1);
+        try {
+            return switch (encoded.charAt(0)) {
+                case 'N' -> null;
+                case 'F' -> Float.intBitsToFloat(Integer.parseInt(body));
+                case 'D' -> Double.longBitsToDouble(Long.parseLong(body));
+                case 'L' -> Long.parseLong(body);
+                case 'I' -> Integer.parseInt(body);
+                case 'B' -> new BytesRef(Base64.getUrlDecoder().decode(body));
+                default -> throw new IllegalArgumentException("无效的分页游标");
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.booksearch.searcher;
+
+import com.booksearch.model.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 单条搜索命中：ISBN、相关度得分和摘要字段组成的 Book
+ */
+@Data
+@AllArgsConstructor
+public class SearchHit {
+    private String isbn;
+    private float score;
+    private Book book;
+}
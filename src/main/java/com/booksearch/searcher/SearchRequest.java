@@ -0,0 +1,54 @@
+package com.booksearch.searcher;
+
+import com.booksearch.util.BookSorts;
+import lombok.Data;
+import org.apache.lucene.search.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * 结构化搜索请求：关键词、过滤条件与是否计算分面
+ * 未设置的过滤条件不生效
+ */
+@Data
+public class SearchRequest {
+    private String query = "";                           // 关键词，为空时匹配全部书籍
+    private int limit = MAX_SEARCH_RESULTS;
+    private List<String> categories = new ArrayList<>();  // 类别过滤，多个类别之间为“或”
+    private Double minPrice;                              // 售价下限（含）
+    private Double maxPrice;                              // 售价上限（含）
+    private Integer fromYear;                             // 出版年份下限（含）
+    private Integer toYear;                               // 出版年份上限（含）
+    private Sort sort = BookSorts.RELEVANCE;             // 排序方式，默认按相关度
+    private boolean facets = false;                       // 是否返回类别、售价区间、出版年份的分面计数
+    private boolean paginate = false;                     // 是否返回下一页游标
+    private String cursor;                                // 上一页返回的游标，非空时从该位置之后继续
+
+    public SearchRequest() {
+    }
+
+    public SearchRequest(String query, int limit) {
+        this.query = query;
+        this.limit = limit;
+    }
+
+    /**
+     * @return 结果缓存键，包含所有影响结果的参数
+     */
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder(QueryResultCache.key(query, limit));
+        if (!categories.isEmpty()) key.append("|c=").append(String.join(",", categories));
+        if (minPrice != null) key.append("|p>=").append(minPrice);
+        if (maxPrice != null) key.append("|p<=").append(maxPrice);
+        if (fromYear != null) key.append("|y>=").append(fromYear);
+        if (toYear != null) key.append("|y<=").append(toYear);
+        if (sort != null && sort != BookSorts.RELEVANCE) key.append("|s=").append(sort);
+        if (facets) key.append("|facets");
+        if (paginate) key.append("|paged");
+        if (cursor != null) key.append("|after=").append(cursor);
+        return key.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.booksearch.searcher;
+
+import com.booksearch.model.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次搜索的结果
+ */
+@Data
+@AllArgsConstructor
+public class SearchResult {
+    private long totalHits;        // 匹配的文档总数
+    private List<SearchHit> hits;  // 按得分排序的前 N 条命中
+    private long generation;       // 产生该结果的索引读取器版本
+    private Map<String, Map<String, Long>> facets; // 分面维度 -> (取值 -> 命中数)，未请求分面时为空
+    private String nextCursor;     // 下一页游标，未请求分页、已无更多结果或结果不完整时为 null
+    private boolean partial;       // 检索超出时间预算而提前停止，命中与总数只覆盖已检索的部分
+
+    /**
+     * @return 命中的 Book 列表
+     */
+    public List<Book> getBooks() {
+        return hits.stream().map(SearchHit::getBook).toList();
+    }
+}
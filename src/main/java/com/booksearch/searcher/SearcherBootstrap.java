@@ -0,0 +1,131 @@
+package com.booksearch.searcher;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 快速启动：后台并行打开索引与加载分词词典，完成后执行预热查询再标记为就绪
+ * 调用方可以先开始监听端口，就绪前拒绝流量或通过 await 等待
+ */
+public class SearcherBootstrap {
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<BookSearcher> future;
+    private volatile long readyNanos = -1;
+
+    private SearcherBootstrap(SearcherConfig config) {
+        CompletableFuture<BookSearcher> opened = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new BookSearcher(config);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        CompletableFuture<Void> analyzerLoaded = CompletableFuture.runAsync(SearcherBootstrap::loadAnalyzerDictionaries);
+        this.future = opened.thenCombine(analyzerLoaded, (searcher, _) -> searcher)
+                .thenApply(searcher -> {
+                    try {
+                        searcher.warmUp(config.getWarmupQueries(), config.getWarmupRounds());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    readyNanos = System.nanoTime();
+                    return searcher;
+                });
+    }
+
+    private SearcherBootstrap(BookSearcher searcher) {
+        this.future = CompletableFuture.completedFuture(searcher);
+        this.readyNanos = startNanos;
+    }
+
+    /**
+     * 开始后台初始化，立即返回
+     * @param config 搜索器参数，包括是否预读索引与预热查询
+     */
+    public static SearcherBootstrap start(SearcherConfig config) {
+        return new SearcherBootstrap(config);
+    }
+
+    /**
+     * 包装已初始化的搜索器，视为已就绪
+     */
+    public static SearcherBootstrap of(BookSearcher searcher) {
+        return new SearcherBootstrap(searcher);
+    }
+
+    /**
+     * 分词一段文本以触发词典加载
+     */
+    private static void loadAnalyzerDictionaries() {
+        try (Analyzer analyzer = new SmartChineseAnalyzer();
+             TokenStream stream = analyzer.tokenStream("title", "图书搜索引擎启动预热")) {
+            stream.reset();
+            while (stream.incrementToken()) {
+                // 只为加载词典，不需要结果
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return 初始化与预热是否已完成
+     */
+    public boolean isReady() {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    /**
+     * @return 初始化是否失败
+     */
+    public boolean isFailed() {
+        return future.isCompletedExceptionally();
+    }
+
+    /**
+     * 阻塞直到搜索器就绪
+     * @return 已预热的搜索器
+     */
+    public BookSearcher await() throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待搜索器初始化时被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("搜索器初始化失败", e.getCause());
+        }
+    }
+
+    /**
+     * @return 就绪的搜索器，尚未就绪时返回 null
+     */
+    public BookSearcher getIfReady() {
+        return isReady() ? future.join() : null;
+    }
+
+    /**
+     * @return 从开始初始化到就绪的毫秒数，尚未就绪时返回 -1
+     */
+    public long getStartupMillis() {
+        long ready = readyNanos;
+        return ready < 0 ? -1 : (ready - startNanos) / 1_000_000;
+    }
+
+    /**
+     * @return 从开始初始化到现在的毫秒数
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
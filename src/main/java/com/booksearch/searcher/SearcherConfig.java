@@ -0,0 +1,55 @@
+package com.booksearch.searcher;
+
+import lombok.Data;
+
+import java.util.List;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * BookSearcher 的可调参数，默认值取自 Constants
+ */
+@Data
+public class SearcherConfig {
+    private String indexDir = INDEX_FILE_DIR;
+    private int resultCacheSize = SEARCH_RESULT_CACHE_SIZE; // 查询结果缓存条目数，<= 0 表示禁用
+    private long maxStalenessMs = SEARCH_MAX_STALENESS_MS;  // 后台刷新间隔，即新写入的书籍最多多久后可被搜到，<= 0 表示不自动刷新
+    private long slowQueryMs = SEARCH_SLOW_QUERY_MS;        // 总耗时超过该值的查询记为慢查询并输出日志，<= 0 表示不记录
+    private boolean preload = false;                        // 以 MMapDirectory 打开索引并在打开时把全部文件读入页缓存，避免首批查询的缺页
+    private List<String> warmupQueries = SEARCH_WARMUP_QUERIES; // SearcherBootstrap 在标记就绪前执行的预热查询
+    private int warmupRounds = SEARCH_WARMUP_ROUNDS;        // 预热查询执行的轮数，使检索路径被 JIT 编译
+    private String bookStoreDir = null;                     // 二进制书籍存储目录，设置后在存储与索引版本一致时从中读取命中书籍的字段，为 null 时读取索引的存储字段
+
+    private QueryMode queryMode = QueryMode.COMBINED;
+
+    // 查询代价限制，每项触发次数见 SearchMetrics
+    private long timeoutMs = SEARCH_TIMEOUT_MS;             // 单个查询的检索时间预算（含解析），超时返回部分结果，<= 0 表示不限制
+    private int maxClauses = SEARCH_MAX_CLAUSES;            // 超过该叶子子句数的查询被拒绝
+    private int maxFuzzyEdits = SEARCH_MAX_FUZZY_EDITS;     // 模糊查询的编辑距离上限，为 0 时模糊查询按普通词项检索
+    private int fuzzyPrefixLength = SEARCH_FUZZY_PREFIX_LENGTH;
+    private int maxExpansions = SEARCH_MAX_EXPANSIONS;      // 多词项查询只保留得分最高的这些词项
+    private LeadingWildcard leadingWildcard = LeadingWildcard.REJECT;
+
+    // 单个查询内按索引切片并行检索
+    private ParallelMode parallelMode = ParallelMode.OFF;
+    private int parallelThreads = SEARCH_PARALLEL_THREADS;
+    private int maxDocsPerSlice = SEARCH_MAX_DOCS_PER_SLICE;           // 单个切片最多包含的文档数
+    private int maxSegmentsPerSlice = SEARCH_MAX_SEGMENTS_PER_SLICE;   // 单个切片最多包含的段数
+    private double expensiveQueryRatio = SEARCH_EXPENSIVE_QUERY_RATIO; // EXPENSIVE 模式下，词项文档频率之和超过总文档数的该比例时并行
+
+    public enum QueryMode {
+        COMBINED,   // 在合并字段 all 上检索，每个词项读取一个倒排表；all 不记录位置，短语按所有词项都必须出现匹配；索引中没有该字段时自动退回 MULTI_FIELD
+        MULTI_FIELD // 每个词项展开为对各文本字段的查询
+    }
+
+    public enum LeadingWildcard {
+        REJECT,     // 以 * 或 ? 开头的词项需要遍历整个词典，直接拒绝
+        STRIP       // 去掉开头的通配符后检索剩余部分，如 *编程 按 编程 检索
+    }
+
+    public enum ParallelMode {
+        OFF,        // 始终在调用线程上顺序检索
+        ALWAYS,     // 始终并行检索
+        EXPENSIVE   // 仅对代价高的查询（如单个常见字）并行，廉价查询避免线程切换开销
+    }
+}
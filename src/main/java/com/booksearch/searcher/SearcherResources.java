@@ -0,0 +1,64 @@
+package com.booksearch.searcher;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可由多个 BookSearcher 共用的资源：查询分析器、后台刷新线程和切片检索线程池
+ * 分片搜索时由 ShardedBookSearcher 创建一份交给所有分片
+ */
+class SearcherResources implements Closeable {
+    // 分析器本身线程安全，分词组件按线程缓存
+    final Analyzer analyzer;
+    // 定期刷新读取器的线程，未启用定期刷新时为 null
+    final ScheduledExecutorService refresher;
+    // 单个查询内并行检索各切片的线程池，未启用时为 null
+    final ExecutorService searchExecutor;
+
+    /**
+     * @param config 刷新间隔与并行检索参数
+     */
+    SearcherResources(SearcherConfig config) {
+        this.analyzer = new SmartChineseAnalyzer();
+        if (config.getParallelMode() != SearcherConfig.ParallelMode.OFF && config.getParallelThreads() > 1) {
+            AtomicInteger threadId = new AtomicInteger();
+            this.searchExecutor = Executors.newFixedThreadPool(config.getParallelThreads(), r -> {
+                Thread thread = new Thread(r, "search-slice-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.searchExecutor = null;
+        }
+        if (config.getMaxStalenessMs() > 0) {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "searcher-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.refresher = null;
+        }
+    }
+
+    /**
+     * 停止刷新线程与切片线程池，关闭分析器
+     * 应在所有使用这些资源的搜索器关闭之后调用
+     */
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (searchExecutor != null) {
+            searchExecutor.shutdown();
+        }
+        analyzer.close();
+    }
+}
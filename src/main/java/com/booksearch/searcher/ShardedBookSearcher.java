@@ -0,0 +1,201 @@
+package com.booksearch.searcher;
+
+import com.booksearch.indexer.IndexerConfig;
+import com.booksearch.indexer.ShardedBookIndexer;
+import com.booksearch.metrics.SearchMetrics;
+import com.booksearch.model.Book;
+import com.booksearch.util.BookSorts;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * 分片索引的协调者：把查询并发分发到各分片的 BookSearcher，再用 TopDocs.merge 合并前 N 条
+ * 不支持分面计数与游标分页；按类别分片时，带类别过滤的查询只分发到对应分片
+ */
+public class ShardedBookSearcher {
+    private final BookSearcher[] shards;
+    private final IndexerConfig.ShardBy shardBy;
+    private final SearcherResources resources;
+    private final ExecutorService executor;
+
+    /**
+     * 打开按 ISBN 哈希分片的全部分片
+     * @param config 各分片共用的参数，indexDir 为索引根目录
+     * @param shardCount 分片数
+     */
+    public ShardedBookSearcher(SearcherConfig config, int shardCount) throws IOException {
+        this(config, shardCount, IndexerConfig.ShardBy.ISBN_HASH);
+    }
+
+    /**
+     * 打开 ShardedBookIndexer 生成的全部分片
+     * @param config 各分片共用的参数，indexDir 为索引根目录
+     * @param shardCount 分片数
+     * @param shardBy 构建索引时的分片方式，必须与 ShardedBookIndexer 使用的一致，否则按类别过滤会漏掉结果
+     */
+    public ShardedBookSearcher(SearcherConfig config, int shardCount, IndexerConfig.ShardBy shardBy) throws IOException {
+        this.shardBy = shardBy;
+        this.resources = new SearcherResources(config);
+        this.shards = new BookSearcher[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new BookSearcher(config, ShardedBookIndexer.shardDir(config.getIndexDir(), i), resources);
+        }
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "shard-search-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 计算需要查询的分片
+     * 按类别分片且请求带类别过滤时，只有这些类别所在的分片可能有命中
+     * @return 升序的分片序号
+     */
+    private int[] targetShards(SearchRequest request) {
+        if (shardBy != IndexerConfig.ShardBy.CATEGORY || request.getCategories().isEmpty()) {
+            return IntStream.range(0, shards.length).toArray();
+        }
+        return request.getCategories().stream()
+                .mapToInt(category -> ShardedBookIndexer.shardOf(category, shards.length))
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * 并发查询所有分片并合并结果
+     * @param request 搜索请求，不能要求分面计数或分页
+     * @return 合并后的搜索结果
+     */
+    public SearchResult search(SearchRequest request) throws ParseException, IOException {
+        if (request.isFacets() || request.isPaginate() || request.getCursor() != null) {
+            throw new IllegalArgumentException("分片搜索不支持分面计数与分页");
+        }
+        long start = System.nanoTime();
+        // 所有分片使用相同的分析器与解析规则，查询只需解析一次，代价限制也只检查一次
+        Query query = shards[0].buildQuery(request);
+        Sort sort = request.getSort() == null ? BookSorts.RELEVANCE : request.getSort();
+        boolean byRelevance = sort.equals(BookSorts.RELEVANCE);
+        int limit = request.getLimit();
+        int[] targets = targetShards(request);
+
+        // 下标 i 对应分片 targets[i]
+        IndexSearcher[] searchers = new IndexSearcher[targets.length];
+        try {
+            for (int i = 0; i < targets.length; i++) {
+                searchers[i] = shards[targets[i]].acquire();
+            }
+
+            // 各分片共用时间预算，任一分片超时则整体为部分结果
+            Query[] limited = new Query[targets.length];
+            List<Future<TopDocs>> futures = new ArrayList<>(targets.length);
+            for (int i = 0; i < targets.length; i++) {
+                IndexSearcher searcher = searchers[i];
+                Query shardQuery = shards[targets[i]].timeLimited(query, start);
+                limited[i] = shardQuery;
+                futures.add(executor.submit(() -> byRelevance
+                        ? searcher.search(shardQuery, limit)
+                        : searcher.search(shardQuery, limit, sort)));
+            }
+            TopDocs[] shardHits = new TopDocs[targets.length];
+            boolean partial = false;
+            for (int i = 0; i < targets.length; i++) {
+                shardHits[i] = futures.get(i).get();
+                if (TimeLimitedQuery.timedOut(limited[i])) {
+                    shards[targets[i]].getMetrics().recordGuard(SearchMetrics.Guard.TIMEOUT);
+                    partial = true;
+                }
+            }
+
+            // merge 按数组下标设置 shardIndex，经 targets 回到对应分片读取摘要字段
+            TopDocs merged;
+            if (byRelevance) {
+                merged = TopDocs.merge(limit, shardHits);
+            } else {
+                TopFieldDocs[] fieldDocs = new TopFieldDocs[shardHits.length];
+                for (int i = 0; i < shardHits.length; i++) {
+                    fieldDocs[i] = (TopFieldDocs) shardHits[i];
+                }
+                merged = TopDocs.merge(sort, limit, fieldDocs);
+            }
+
+            List<SearchHit> hits = new ArrayList<>(merged.scoreDocs.length);
+            for (ScoreDoc hit : merged.scoreDocs) {
+                SearchHit searchHit = shards[targets[hit.shardIndex]].toSearchHit(searchers[hit.shardIndex], hit);
+                if (searchHit != null) {
+                    hits.add(searchHit);
+                }
+            }
+            // 各分片读取器版本之和，任一分片刷新后都会变化
+            long generation = 0;
+            for (IndexSearcher searcher : searchers) {
+                generation += ((DirectoryReader) searcher.getIndexReader()).getVersion();
+            }
+            return new SearchResult(merged.totalHits.value, List.copyOf(hits), generation, Map.of(), null, partial);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("分片查询被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("分片查询失败", e.getCause());
+        } finally {
+            for (int i = 0; i < targets.length; i++) {
+                if (searchers[i] != null) {
+                    shards[targets[i]].release(searchers[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 执行书籍搜索，返回摘要字段组成的 Book 列表
+     */
+    public List<Book> search(String queryString, int limit) throws ParseException, IOException {
+        return search(new SearchRequest(queryString, limit)).getBooks();
+    }
+
+    /**
+     * 依次在各分片中查找书籍详情
+     * @param isbn 书籍 ISBN
+     * @return 完整的 Book 对象，找不到时返回 null
+     */
+    public Book findByIsbn(String isbn) throws IOException {
+        for (BookSearcher shard : shards) {
+            Book book = shard.findByIsbnQuietly(isbn);
+            if (book != null) {
+                return book;
+            }
+        }
+        System.err.println("ISBN " + isbn + " 在所有分片中都找不到对应书籍");
+        return null;
+    }
+
+    /**
+     * 关闭所有分片，再释放分片共用的资源
+     */
+    public void close() throws IOException {
+        executor.shutdown();
+        for (BookSearcher shard : shards) {
+            shard.close();
+        }
+        resources.close();
+    }
+}
@@ -0,0 +1,147 @@
+package com.booksearch.searcher;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.QueryTimeout;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Matches;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带时间预算的查询，每个查询一个实例
+ * 按窗口检索各段，窗口之间检查超时，超时后跳过剩余文档并记录为部分结果
+ */
+final class TimeLimitedQuery extends Query {
+    private static final int INITIAL_WINDOW = 100;
+
+    private final Query in;
+    private final QueryTimeout timeout;
+    private final AtomicBoolean timedOut;
+
+    TimeLimitedQuery(Query in, QueryTimeout timeout) {
+        this(in, timeout, new AtomicBoolean());
+    }
+
+    private TimeLimitedQuery(Query in, QueryTimeout timeout, AtomicBoolean timedOut) {
+        this.in = in;
+        this.timeout = timeout;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * @return 检索是否因超时提前停止
+     */
+    boolean timedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return query 为 TimeLimitedQuery 且已超时
+     */
+    static boolean timedOut(Query query) {
+        return query instanceof TimeLimitedQuery limited && limited.timedOut();
+    }
+
+    @Override
+    public Query rewrite(IndexSearcher searcher) throws IOException {
+        Query rewritten = in.rewrite(searcher);
+        return rewritten == in ? this : new TimeLimitedQuery(rewritten, timeout, timedOut);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        Weight weight = searcher.createWeight(in, scoreMode, boost);
+        return new Weight(this) {
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                return weight.explain(context, doc);
+            }
+
+            @Override
+            public Matches matches(LeafReaderContext context, int doc) throws IOException {
+                return weight.matches(context, doc);
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                return weight.scorer(context);
+            }
+
+            @Override
+            public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+                BulkScorer scorer = weight.bulkScorer(context);
+                return scorer == null ? null : new LimitedBulkScorer(scorer);
+            }
+
+            // 超时的结果不完整，不能进入查询缓存
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        in.visit(visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+    }
+
+    @Override
+    public String toString(String field) {
+        return in.toString(field);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return sameClassAs(other) && in.equals(((TimeLimitedQuery) other).in)
+                && timedOut == ((TimeLimitedQuery) other).timedOut;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * classHash() + in.hashCode();
+    }
+
+    /**
+     * 按逐步增大的窗口调用原始 BulkScorer，每个窗口前检查超时
+     */
+    private class LimitedBulkScorer extends BulkScorer {
+        private final BulkScorer in;
+
+        LimitedBulkScorer(BulkScorer in) {
+            this.in = in;
+        }
+
+        @Override
+        public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+            long window = INITIAL_WINDOW;
+            while (min < max) {
+                if (timeout.shouldExit()) {
+                    timedOut.set(true);
+                    return DocIdSetIterator.NO_MORE_DOCS;
+                }
+                int windowMax = (int) Math.min(min + window, max);
+                min = in.score(collector, acceptDocs, min, windowMax);
+                window = Math.min(window + (window >> 1), Integer.MAX_VALUE);
+            }
+            return min;
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.booksearch.server;
+
+import com.booksearch.model.Book;
+import com.booksearch.searcher.BookSearcher;
+import com.booksearch.searcher.SearchRequest;
+import com.booksearch.searcher.SearchResult;
+import com.booksearch.searcher.SearcherBootstrap;
+import com.booksearch.searcher.SearcherConfig;
+import com.booksearch.util.BookSorts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.lucene.queryparser.classic.ParseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.booksearch.util.Constants.*;
+
+/**
+ * 基于 JDK HttpServer 的 HTTP/JSON 搜索服务
+ * 所有请求共享一个 BookSearcher，请求在虚拟线程上处理，检索在固定大小的平台线程池上执行
+ *
+ * 接口:
+ *   GET /search?q=关键词&limit=20&sort=relevance|price|price_desc|newest&category=类别&minPrice=&maxPrice=&fromYear=&toYear=&facets=true
+ *               &paginate=true 返回 nextCursor，下一页以 &cursor=nextCursor 请求
+ *   GET /book?isbn=ISBN
+ *   GET /health  初始化与预热完成前返回 503
+ *   GET /metrics 纯文本的搜索延迟与命中数统计
+ */
+public class SearchServer {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    static {
+        OBJECT_MAPPER.findAndRegisterModules();
+        OBJECT_MAPPER.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private final SearcherBootstrap bootstrap;
+    private final HttpServer server;
+    private final ExecutorService searchPool;
+
+    /**
+     * @param searcher 共享的搜索器
+     * @param port 监听端口
+     * @param searchThreads 执行检索的线程数，通常等于 CPU 核数
+     */
+    public SearchServer(BookSearcher searcher, int port, int searchThreads) throws IOException {
+        this(SearcherBootstrap.of(searcher), port, searchThreads);
+    }
+
+    /**
+     * 先开始监听，搜索器在后台初始化；就绪前 /search 与 /book 返回 503
+     * @param bootstrap 正在初始化的搜索器
+     * @param port 监听端口
+     * @param searchThreads 执行检索的线程数，通常等于 CPU 核数
+     */
+    public SearchServer(SearcherBootstrap bootstrap, int port, int searchThreads) throws IOException {
+        this.bootstrap = bootstrap;
+        this.searchPool = Executors.newFixedThreadPool(searchThreads);
+        this.server = HttpServer.create(new InetSocketAddress(port), SERVER_BACKLOG);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/search", wrap(this::handleSearch));
+        server.createContext("/book", wrap(this::handleBook));
+        server.createContext("/health", wrap(this::handleHealth));
+        server.createContext("/metrics", wrap(this::handleMetrics));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("搜索服务已启动，端口 " + server.getAddress().getPort());
+    }
+
+    /**
+     * 停止服务，等待正在处理的请求最多 delaySeconds 秒
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        searchPool.shutdown();
+    }
+
+    private Object handleSearch(HttpExchange exchange) throws Exception {
+        Map<String, List<String>> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        SearchRequest request = new SearchRequest();
+        request.setQuery(first(params, "q", ""));
+        request.setLimit(Math.min(Integer.parseInt(first(params, "limit", String.valueOf(MAX_SEARCH_RESULTS))), 1000));
+        request.setSort(BookSorts.byName(first(params, "sort", null)));
+        request.setCategories(params.getOrDefault("category", List.of()));
+        String minPrice = first(params, "minPrice", null);
+        if (minPrice != null) request.setMinPrice(Double.parseDouble(minPrice));
+        String maxPrice = first(params, "maxPrice", null);
+        if (maxPrice != null) request.setMaxPrice(Double.parseDouble(maxPrice));
+        String fromYear = first(params, "fromYear", null);
+        if (fromYear != null) request.setFromYear(Integer.parseInt(fromYear));
+        String toYear = first(params, "toYear", null);
+        if (toYear != null) request.setToYear(Integer.parseInt(toYear));
+        request.setFacets(Boolean.parseBoolean(first(params, "facets", "false")));
+        request.setPaginate(Boolean.parseBoolean(first(params, "paginate", "false")));
+        request.setCursor(first(params, "cursor", null));
+
+        BookSearcher searcher = searcher();
+        long start = System.nanoTime();
+        SearchResult result = onSearchPool(() -> searcher.search(request));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("query", request.getQuery());
+        body.put("totalHits", result.getTotalHits());
+        body.put("tookMicros", (System.nanoTime() - start) / 1000);
+        if (result.isPartial()) {
+            body.put("partial", true);
+        }
+        body.put("hits", result.getHits());
+        if (request.isFacets()) {
+            body.put("facets", result.getFacets());
+        }
+        if (result.getNextCursor() != null) {
+            body.put("nextCursor", result.getNextCursor());
+        }
+        return body;
+    }
+
+    private Object handleBook(HttpExchange exchange) throws Exception {
+        Map<String, List<String>> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String isbn = first(params, "isbn", null);
+        if (isbn == null || isbn.isBlank()) {
+            throw new IllegalArgumentException("缺少参数 isbn");
+        }
+        BookSearcher searcher = searcher();
+        Book book = onSearchPool(() -> searcher.findByIsbn(isbn));
+        if (book == null) {
+            throw new NotFoundException("找不到 ISBN 为 " + isbn + " 的书籍");
+        }
+        return book;
+    }
+
+    private Object handleHealth(HttpExchange exchange) throws Exception {
+        Map<String, Object> body = new LinkedHashMap<>();
+        BookSearcher searcher = bootstrap.getIfReady();
+        if (searcher == null) {
+            body.put("status", bootstrap.isFailed() ? "DOWN" : "STARTING");
+            body.put("elapsedMillis", bootstrap.getElapsedMillis());
+            throw new UnavailableException(body);
+        }
+        body.put("status", "UP");
+        body.put("startupMillis", bootstrap.getStartupMillis());
+        body.put("numDocs", searcher.numDocs());
+        body.put("cache", searcher.getResultCache().toString());
+        body.put("metrics", searcher.getMetrics().toString());
+        return body;
+    }
+
+    /**
+     * 以纯文本输出指标，便于 curl 查看或被采集脚本解析
+     */
+    private Object handleMetrics(HttpExchange exchange) {
+        BookSearcher searcher = bootstrap.getIfReady();
+        return new PlainText(searcher == null ? "search.ready 0\n" : "search.ready 1\n" + searcher.getMetrics().dump());
+    }
+
+    /**
+     * @return 已就绪的搜索器，未就绪时抛出 UnavailableException
+     */
+    private BookSearcher searcher() throws UnavailableException {
+        BookSearcher searcher = bootstrap.getIfReady();
+        if (searcher == null) {
+            throw new UnavailableException(Map.of("error", "搜索服务正在启动"));
+        }
+        return searcher;
+    }
+
+    /**
+     * 在检索线程池上执行任务并等待结果
+     */
+    private <T> T onSearchPool(Callable<T> task) throws Exception {
+        try {
+            return searchPool.submit(task).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 统一处理请求方法检查、JSON 序列化与错误码：参数错误 400，找不到 404，未就绪 503，其他 500
+     */
+    private HttpHandler wrap(Handler handler) {
+        return exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    send(exchange, 405, Map.of("error", "只支持 GET 请求"));
+                    return;
+                }
+                try {
+                    send(exchange, 200, handler.handle(exchange));
+                } catch (ParseException | IllegalArgumentException e) {
+                    send(exchange, 400, Map.of("error", String.valueOf(e.getMessage())));
+                } catch (NotFoundException e) {
+                    send(exchange, 404, Map.of("error", e.getMessage()));
+                } catch (UnavailableException e) {
+                    send(exchange, 503, e.body);
+                } catch (Exception e) {
+                    System.err.println("处理请求失败：" + exchange.getRequestURI() + " " + e);
+                    send(exchange, 500, Map.of("error", "服务器内部错误"));
+                }
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes;
+        if (body instanceof PlainText(String text)) {
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        } else {
+            bytes = OBJECT_MAPPER.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.computeIfAbsent(key, _ -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static String first(Map<String, List<String>> params, String key, String defaultValue) {
+        List<String> values = params.get(key);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(HttpExchange exchange) throws Exception;
+    }
+
+    /**
+     * 处理器返回该类型时按纯文本输出，不做 JSON 序列化
+     */
+    private record PlainText(String text) {
+    }
+
+    private static class NotFoundException extends Exception {
+        NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    private static class UnavailableException extends Exception {
+        private final Object body;
+
+        UnavailableException(Object body) {
+            super("service unavailable");
+            this.body = body;
+        }
+    }
+
+    /**
+     * 用法: SearchServer [--fast-start] [端口]
+     * --fast-start 时先监听端口，在后台初始化与预热，失败时以非零状态退出
+     */
+    public static void main(String[] args) {
+        boolean fastStart = false;
+        int port = SERVER_PORT;
+        for (String arg : args) {
+            if (arg.equals("--fast-start")) {
+                fastStart = true;
+            } else {
+                port = Integer.parseInt(arg);
+            }
+        }
+        try {
+            SearcherBootstrap bootstrap;
+            if (fastStart) {
+                SearcherConfig config = new SearcherConfig();
+                config.setPreload(true);
+                bootstrap = SearcherBootstrap.start(config);
+            } else {
+                bootstrap = SearcherBootstrap.of(new BookSearcher());
+            }
+            SearchServer server = new SearchServer(bootstrap, port, SERVER_SEARCH_THREADS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                if (bootstrap.isFailed()) {
+                    // 初始化失败时没有需要关闭的搜索器
+                    return;
+                }
+                try {
+                    bootstrap.await().close();
+                } catch (IOException e) {
+                    System.err.println("关闭搜索器失败：" + e.getMessage());
+                }
+            }));
+            server.start();
+            BookSearcher searcher;
+            try {
+                searcher = bootstrap.await();
+            } catch (IOException e) {
+                // 搜索器不会再就绪，退出交给进程管理器重启
+                System.err.println("搜索器初始化失败，停止服务：" + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            searcher.getMetrics().register("search-server");
+            System.out.println("搜索器已就绪，启动耗时 " + bootstrap.getStartupMillis() + " ms");
+        } catch (IOException e) {
+            System.err.println("无法启动搜索服务：" + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
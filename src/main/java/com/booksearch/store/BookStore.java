@@ -0,0 +1,281 @@
+package com.booksearch.store;
+
+import com.booksearch.model.Book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.booksearch.store.BookStoreFormat.*;
+
+/**
+ * 只读的二进制书籍存储，映射为 MemorySegment 后按 ISBN 二分查找，直接从映射内存解码字段
+ * 线程安全；close 后不可再使用，正在进行的读取结束后才解除映射
+ */
+public class BookStore implements Closeable {
+    private final Arena arena;
+    private final MemorySegment data;
+    private final MemorySegment index;
+    private final int count;
+    private final long indexVersion;
+    // 存储自身持有一份引用，每个正在读取的线程各一份；降为 0 时解除映射
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private BookStore(Arena arena, MemorySegment data, MemorySegment index) throws IOException {
+        this.arena = arena;
+        this.data = data;
+        this.index = index;
+        if (data.byteSize() < DATA_HEADER_BYTES || data.get(INT, 0) != MAGIC_DATA
+                || index.byteSize() < INDEX_HEADER_BYTES || index.get(INT, 0) != MAGIC_INDEX) {
+            throw new IOException("不是有效的书籍存储文件");
+        }
+        if (data.get(INT, 4) != VERSION || index.get(INT, 4) != VERSION) {
+            throw new IOException("不支持的书籍存储版本");
+        }
+        this.count = index.get(INT, 8);
+        if (index.byteSize() < INDEX_HEADER_BYTES + (long) count * Long.BYTES) {
+            throw new IOException("书籍存储索引文件不完整");
+        }
+        // 两个文件分别替换，字节数不符说明打开时存储正在更新
+        if (data.byteSize() != index.get(LONG, 12)) {
+            throw new IOException("书籍存储的数据文件与索引文件不匹配，可能正在更新");
+        }
+        this.indexVersion = index.get(LONG, 20);
+    }
+
+    /**
+     * 映射 BookStoreWriter 生成的存储目录
+     * @param dir 包含 books.bin 与 books.idx 的目录
+     */
+    public static BookStore open(Path dir) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel dataChannel = FileChannel.open(dir.resolve(DATA_FILE), StandardOpenOption.READ);
+             FileChannel indexChannel = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ)) {
+            MemorySegment data = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size(), arena);
+            MemorySegment index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size(), arena);
+            return new BookStore(arena, data, index);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return 存储中的书籍数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return 生成存储时 Lucene 索引的版本，与 DirectoryReader.getVersion() 比较；生成时没有索引则为 -1
+     */
+    public long getIndexVersion() {
+        return indexVersion;
+    }
+
+    /**
+     * 按 ISBN 读取书籍的全部字段
+     * @return 完整的 Book 对象，找不到时返回 null
+     */
+    public Book get(String isbn) throws IOException {
+        incRef();
+        try {
+            long offset = find(isbn);
+            return offset < 0 ? null : decode(offset, true);
+        } finally {
+            decRef();
+        }
+    }
+
+    /**
+     * 按 ISBN 读取书籍的摘要字段，长文本字段保持默认值
+     * @return 只含摘要字段的 Book 对象，找不到时返回 null
+     */
+    public Book getSummary(String isbn) throws IOException {
+        incRef();
+        try {
+            long offset = find(isbn);
+            return offset < 0 ? null : decode(offset, false);
+        } finally {
+            decRef();
+        }
+    }
+
+    private void incRef() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("书籍存储已关闭");
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+    }
+
+    private void decRef() {
+        if (refCount.decrementAndGet() == 0) {
+            arena.close();
+        }
+    }
+
+    /**
+     * 在按 ISBN 排序的偏移量数组上二分查找，直接与映射内存中的 ISBN 字节比较
+     * @return 记录偏移量，找不到时返回 -1
+     */
+    private long find(String isbn) {
+        MemorySegment key = MemorySegment.ofArray(isbn.getBytes(StandardCharsets.UTF_8));
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long offset = index.get(LONG, INDEX_HEADER_BYTES + (long) mid * Long.BYTES);
+            int cmp = compareIsbn(offset, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private int compareIsbn(long recordOffset, MemorySegment key) {
+        long start = recordOffset + Integer.BYTES;
+        int length = Math.max(data.get(INT, start), 0);
+        start += Integer.BYTES;
+        long mismatch = MemorySegment.mismatch(data, start, start + length, key, 0, key.byteSize());
+        if (mismatch < 0) {
+            return 0;
+        }
+        if (mismatch == length) {
+            return -1;
+        }
+        if (mismatch == key.byteSize()) {
+            return 1;
+        }
+        return Integer.compare(Byte.toUnsignedInt(data.get(ValueLayout.JAVA_BYTE, start + mismatch)),
+                Byte.toUnsignedInt(key.get(ValueLayout.JAVA_BYTE, mismatch)));
+    }
+
+    private Book decode(long offset, boolean full) throws IOException {
+        Cursor cursor = new Cursor(offset + Integer.BYTES);
+        Book book = new Book();
+        book.setIsbn(cursor.readString());
+        book.setTitle(cursor.readString());
+        book.setAuthor(cursor.readString());
+        book.setLanguage(cursor.readString());
+        book.setPublisher(cursor.readString());
+        long epochDay = cursor.readLong();
+        book.setPublicationDate(epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay));
+        book.setSalePrice(cursor.readDouble());
+        book.setOriginalPrice(cursor.readDouble());
+        book.setCategory(cursor.readString());
+        if (full) {
+            book.setContents(cursor.readText());
+            book.setBookDescription(cursor.readText());
+            book.setAuthorDescription(cursor.readText());
+            book.setEditorRecommendation(cursor.readText());
+        }
+        return book;
+    }
+
+    /**
+     * 在数据段上顺序读取一条记录的字段
+     */
+    private class Cursor {
+        private long position;
+
+        Cursor(long position) {
+            this.position = position;
+        }
+
+        int readInt() {
+            int value = data.get(INT, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        long readLong() {
+            long value = data.get(LONG, position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        double readDouble() {
+            double value = data.get(DOUBLE, position);
+            position += Double.BYTES;
+            return value;
+        }
+
+        String readString() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = data.asSlice(position, length).toArray(ValueLayout.JAVA_BYTE);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String readText() throws IOException {
+            byte codec = data.get(ValueLayout.JAVA_BYTE, position);
+            position += 1;
+            int rawLength = readInt();
+            int storedLength = readInt();
+            MemorySegment stored = data.asSlice(position, storedLength);
+            position += storedLength;
+            if (rawLength < 0) {
+                return null;
+            }
+            if (codec == RAW) {
+                return new String(stored.toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+            }
+            // 压缩数据直接以映射内存作为 Inflater 的输入，不复制到堆上
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored.asByteBuffer());
+                byte[] raw = new byte[rawLength];
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(raw, length, rawLength - length);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += n;
+                }
+                if (length != rawLength) {
+                    throw new IOException("书籍存储中的压缩文本长度不符");
+                }
+                return new String(raw, StandardCharsets.UTF_8);
+            } catch (DataFormatException e) {
+                throw new IOException("书籍存储中的压缩文本已损坏", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * 关闭存储，之后的读取抛出 IllegalStateException；正在进行的读取结束后解除文件映射
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            decRef();
+        }
+    }
+}
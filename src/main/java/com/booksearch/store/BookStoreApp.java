@@ -0,0 +1,89 @@
+package com.booksearch.store;
+
+import com.booksearch.model.Book;
+import com.booksearch.util.BookJsonReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.booksearch.util.BookSerializer.openReader;
+import static com.booksearch.util.Constants.*;
+import static com.booksearch.util.PrintProgressBar.printProgressCount;
+
+public class BookStoreApp {
+    /**
+     * 用法:
+     *   BookStoreApp                将 books.json 转换为二进制存储，应在构建索引之后运行
+     *   BookStoreApp --get=ISBN     从二进制存储中读取一本书
+     */
+    public static void main(String[] args) {
+        Path dir = Paths.get(BOOK_STORE_DIR);
+        if (args.length > 0 && args[0].startsWith("--get=")) {
+            String isbn = args[0].substring("--get=".length());
+            try (BookStore store = BookStore.open(dir)) {
+                Book book = store.get(isbn);
+                System.out.println(book == null ? "找不到 ISBN 为 " + isbn + " 的书籍" : book);
+            } catch (IOException e) {
+                System.out.println("读取书籍存储失败" + e);
+            }
+            return;
+        }
+
+        long indexVersion;
+        try {
+            indexVersion = readIndexVersion(Paths.get(INDEX_FILE_DIR));
+        } catch (IOException e) {
+            System.out.println("读取索引版本失败" + e);
+            return;
+        }
+        if (indexVersion == BookStoreFormat.NO_INDEX_VERSION) {
+            System.out.println("索引目录 " + INDEX_FILE_DIR + " 中没有索引，搜索器不会使用本次生成的存储");
+        }
+
+        System.out.println("正在将 " + FILE_PATH + " 转换为二进制存储 " + dir + " ...");
+        long startTime = System.currentTimeMillis();
+        try (BookJsonReader books = openReader(new File(FILE_PATH));
+             BookStoreWriter writer = new BookStoreWriter(dir, BOOK_STORE_COMPRESS_MIN_BYTES, indexVersion)) {
+            while (books.hasNext()) {
+                writer.write(books.next());
+                if (writer.getCount() % 1000 == 0) {
+                    printProgressCount(writer.getCount());
+                }
+            }
+            System.out.println();
+            System.out.println("共写入 " + writer.getCount() + " 本书籍");
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("转换书籍存储失败" + e);
+            return;
+        }
+        try {
+            long jsonBytes = new File(FILE_PATH).length();
+            long storeBytes = Files.size(dir.resolve(BookStoreFormat.DATA_FILE)) + Files.size(dir.resolve(BookStoreFormat.INDEX_FILE));
+            System.out.printf("JSON %.1f MB -> 二进制存储 %.1f MB，耗时 %.2f 秒\n",
+                    jsonBytes / 1048576.0, storeBytes / 1048576.0, (System.currentTimeMillis() - startTime) / 1000.0);
+        } catch (IOException e) {
+            System.out.println("无法统计文件大小" + e);
+        }
+    }
+
+    /**
+     * @return 索引最新提交的版本，目录中没有索引时返回 NO_INDEX_VERSION
+     */
+    private static long readIndexVersion(Path indexDir) throws IOException {
+        try (Directory directory = FSDirectory.open(indexDir)) {
+            if (!DirectoryReader.indexExists(directory)) {
+                return BookStoreFormat.NO_INDEX_VERSION;
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                return reader.getVersion();
+            }
+        }
+    }
+}
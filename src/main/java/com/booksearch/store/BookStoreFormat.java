@@ -0,0 +1,34 @@
+package com.booksearch.store;
+
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * 二进制书籍存储的文件格式，读写双方共用，数值均为大端序
+ * books.bin: [MAGIC_DATA][VERSION]，随后每条记录为 [记录长度 int][字段...]，摘要字段在前、长文本在后
+ * books.idx: [MAGIC_INDEX][VERSION][记录数 int][books.bin 字节数 long][索引版本 long]，随后是按 ISBN 排序的记录偏移量 long[]
+ */
+final class BookStoreFormat {
+    static final String DATA_FILE = "books.bin";
+    static final String INDEX_FILE = "books.idx";
+
+    static final int MAGIC_DATA = 0x424B5354;  // "BKST"
+    static final int MAGIC_INDEX = 0x424B5349; // "BKSI"
+    static final int VERSION = 2;
+
+    static final int DATA_HEADER_BYTES = 8;
+    static final int INDEX_HEADER_BYTES = 28;
+
+    // 长文本: [编码 byte][原始字节数 int][存储字节数 int][字节]；字符串: [字节数 int，-1 表示 null][UTF-8 字节]
+    static final byte RAW = 0;
+    static final byte DEFLATE = 1;
+    static final long NO_DATE = Long.MIN_VALUE;     // 出版日期为 null
+    static final long NO_INDEX_VERSION = -1;        // 生成存储时没有索引
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private BookStoreFormat() {
+    }
+}
@@ -0,0 +1,179 @@
+package com.booksearch.store;
+
+import com.booksearch.model.Book;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static com.booksearch.store.BookStoreFormat.*;
+
+/**
+ * 顺序写入二进制书籍存储，格式见 BookStoreFormat；同一 ISBN 写入多次时保留最后一次
+ */
+public class BookStoreWriter implements Closeable {
+    private final Path dir;
+    private final DataOutputStream data;
+    private final Path dataTmp;
+    private final int compressMinBytes;
+    private final long indexVersion;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(4096);
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final List<Entry> entries = new ArrayList<>();
+    private long offset;
+
+    private record Entry(byte[] isbn, long offset, int seq) {
+    }
+
+    /**
+     * @param dir 存储目录，已有的 books.bin 与 books.idx 会在 close 时被替换
+     * @param compressMinBytes 长文本超过该字节数时用 Deflate 压缩
+     * @param indexVersion 与存储内容对应的 Lucene 索引版本，没有索引时传 NO_INDEX_VERSION
+     */
+    public BookStoreWriter(Path dir, int compressMinBytes, long indexVersion) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.dataTmp = dir.resolve(DATA_FILE + ".tmp");
+        this.compressMinBytes = compressMinBytes;
+        this.indexVersion = indexVersion;
+        this.data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataTmp), 1 << 16));
+        data.writeInt(MAGIC_DATA);
+        data.writeInt(VERSION);
+        this.offset = DATA_HEADER_BYTES;
+    }
+
+    /**
+     * 追加一个 Book，可由多个线程调用
+     * @param book 要写入的 Book
+     */
+    public synchronized void write(Book book) throws IOException {
+        recordBuffer.reset();
+        writeString(book.getIsbn());
+        writeString(book.getTitle());
+        writeString(book.getAuthor());
+        writeString(book.getLanguage());
+        writeString(book.getPublisher());
+        record.writeLong(book.getPublicationDate() == null ? NO_DATE : book.getPublicationDate().toEpochDay());
+        record.writeDouble(book.getSalePrice());
+        record.writeDouble(book.getOriginalPrice());
+        writeString(book.getCategory());
+        writeText(book.getContents());
+        writeText(book.getBookDescription());
+        writeText(book.getAuthorDescription());
+        writeText(book.getEditorRecommendation());
+
+        entries.add(new Entry(bytes(book.getIsbn()), offset, entries.size()));
+        data.writeInt(recordBuffer.size());
+        recordBuffer.writeTo(data);
+        offset += Integer.BYTES + recordBuffer.size();
+    }
+
+    /**
+     * @return 已写入的记录数
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            record.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        record.writeInt(bytes.length);
+        record.write(bytes);
+    }
+
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            record.writeByte(RAW);
+            record.writeInt(-1);
+            record.writeInt(0);
+            return;
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= compressMinBytes) {
+            byte[] compressed = deflate(raw);
+            // 压缩后没有变小时（如已是短文本或高熵内容）按原样存储
+            if (compressed.length < raw.length) {
+                record.writeByte(DEFLATE);
+                record.writeInt(raw.length);
+                record.writeInt(compressed.length);
+                record.write(compressed);
+                return;
+            }
+        }
+        record.writeByte(RAW);
+        record.writeInt(raw.length);
+        record.writeInt(raw.length);
+        record.write(raw);
+    }
+
+    private byte[] deflate(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buffer = new byte[raw.length + 64];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static byte[] bytes(String isbn) {
+        return (isbn == null ? "" : isbn).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按 ISBN 排序写出索引，先替换数据文件、再替换索引文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        deflater.end();
+
+        // 按 ISBN 字节序排序，相同 ISBN 保留最后写入的一条
+        entries.sort((a, b) -> {
+            int cmp = Arrays.compareUnsigned(a.isbn(), b.isbn());
+            return cmp != 0 ? cmp : Integer.compare(a.seq(), b.seq());
+        });
+        List<Entry> unique = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (!unique.isEmpty() && Arrays.equals(unique.getLast().isbn(), entry.isbn())) {
+                unique.set(unique.size() - 1, entry);
+            } else {
+                unique.add(entry);
+            }
+        }
+
+        Path tmp = dir.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            index.writeInt(MAGIC_INDEX);
+            index.writeInt(VERSION);
+            index.writeInt(unique.size());
+            index.writeLong(offset);
+            index.writeLong(indexVersion);
+            for (Entry entry : unique) {
+                index.writeLong(entry.offset());
+            }
+        }
+        Files.move(dataTmp, dir.resolve(DATA_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,53 @@
+package com.booksearch.util;
+
+import com.booksearch.model.Book;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Lucene 文档与 Book 之间的转换，搜索器恢复命中结果与索引重写共用
+ */
+public class BookDocuments {
+
+    /**
+     * 从 Lucene Document 的存储字段恢复 Book 对象，缺失的字段保持默认值
+     * @param doc Lucene Document
+     * @return Book 对象，缺少 ISBN 时返回 null
+     */
+    public static Book toBook(Document doc) {
+        String isbn = doc.get("isbn");
+        if (isbn == null) {
+            System.err.println("Lucene Document 缺少 ISBN 字段，无法恢复 Book 对象");
+            return null;
+        }
+        Book book = new Book();
+        book.setIsbn(isbn);
+        if (doc.get("title") != null) book.setTitle(doc.get("title"));
+        if (doc.get("author") != null) book.setAuthor(doc.get("author"));
+        if (doc.get("language") != null) book.setLanguage(doc.get("language"));
+        if (doc.get("publisher") != null) book.setPublisher(doc.get("publisher"));
+        if (doc.get("category") != null) book.setCategory(doc.get("category"));
+        if (doc.get("contents") != null) book.setContents(doc.get("contents"));
+        if (doc.get("bookDescription") != null) book.setBookDescription(doc.get("bookDescription"));
+        if (doc.get("authorDescription") != null) book.setAuthorDescription(doc.get("authorDescription"));
+        if (doc.get("editorRecommendation") != null) book.setEditorRecommendation(doc.get("editorRecommendation"));
+
+        IndexableField salePrice = doc.getField("salePrice");
+        if (salePrice != null) {
+            book.setSalePrice(salePrice.numericValue().doubleValue());
+        }
+        IndexableField originalPrice = doc.getField("originalPrice");
+        if (originalPrice != null) {
+            book.setOriginalPrice(originalPrice.numericValue().doubleValue());
+        }
+        IndexableField publicationDate = doc.getField("publicationDate");
+        if (publicationDate != null) {
+            long dateMillis = publicationDate.numericValue().longValue();
+            book.setPublicationDate(Instant.ofEpochMilli(dateMillis).atZone(ZoneOffset.UTC).toLocalDate());
+        }
+        return book;
+    }
+}
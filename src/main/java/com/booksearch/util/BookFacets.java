@@ -0,0 +1,26 @@
+package com.booksearch.util;
+
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.range.DoubleRange;
+
+/**
+ * 索引与搜索共用的分面定义
+ */
+public class BookFacets {
+    // 分面维度名
+    public static final String CATEGORY = "category";
+    public static final String YEAR = "publicationYear";
+    public static final String PRICE = "salePrice";
+
+    // 类别与出版年份以 SortedSetDocValues 形式写入 $facets 字段，计数时无需读取存储字段
+    public static final FacetsConfig CONFIG = new FacetsConfig();
+
+    // 售价区间，基于 salePrice 的 DoubleDocValues 计数
+    public static final DoubleRange[] PRICE_RANGES = {
+            new DoubleRange("0-20", 0.0, true, 20.0, false),
+            new DoubleRange("20-50", 20.0, true, 50.0, false),
+            new DoubleRange("50-100", 50.0, true, 100.0, false),
+            new DoubleRange("100-200", 100.0, true, 200.0, false),
+            new DoubleRange("200+", 200.0, true, Double.POSITIVE_INFINITY, true)
+    };
+}
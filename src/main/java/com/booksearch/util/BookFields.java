@@ -0,0 +1,32 @@
+package com.booksearch.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 索引与搜索共用的检索字段定义
+ */
+public class BookFields {
+    // 参与关键词检索的文本字段，MULTI_FIELD 模式下每个词项展开为对这些字段的查询
+    public static final String[] SEARCH_FIELDS = {"title", "author", "contents", "bookDescription", "editorRecommendation"};
+
+    // 索引时由上述字段合并而成的检索字段，每个词项只需读取一个倒排表
+    public static final String ALL = "all";
+
+    // 各字段写入 ALL 的次数，即字段权重
+    public static final Map<String, Integer> ALL_FIELD_WEIGHTS = new LinkedHashMap<>();
+
+    // ALL 字段相邻两个值之间的位置间隔，大于任何短语查询的 slop
+    public static final int ALL_FIELD_POSITION_GAP = 100;
+
+    // ALL 字段的组成或权重变化时递增，参与内容哈希计算，使增量索引重建所有书籍
+    public static final int ALL_FIELD_VERSION = 1;
+
+    static {
+        ALL_FIELD_WEIGHTS.put("title", 3);
+        ALL_FIELD_WEIGHTS.put("author", 2);
+        ALL_FIELD_WEIGHTS.put("bookDescription", 1);
+        ALL_FIELD_WEIGHTS.put("editorRecommendation", 1);
+        ALL_FIELD_WEIGHTS.put("contents", 1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.booksearch.util;
+
+import com.booksearch.model.Book;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 流式读取 books.json，每次只反序列化数组中的一个 Book
+ * 内存占用与文件大小无关
+ */
+public class BookJsonReader implements Iterator<Book>, Closeable {
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private JsonToken next;
+
+    BookJsonReader(File file, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        this.parser = mapper.getFactory().createParser(file);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("文件 " + file + " 不是 Book 的 JSON 数组");
+        }
+        this.next = parser.nextToken();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next == JsonToken.START_OBJECT;
+    }
+
+    /**
+     * 读取下一个 Book
+     * @return 反序列化后的 Book
+     */
+    @Override
+    public Book next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            Book book = mapper.readValue(parser, Book.class);
+            next = parser.nextToken();
+            return book;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取 Book 失败", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
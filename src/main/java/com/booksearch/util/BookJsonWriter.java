@@ -0,0 +1,51 @@
+package com.booksearch.util;
+
+import com.booksearch.model.Book;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 流式写入 books.json，每写入一个 Book 立即输出，不在内存中累积列表
+ * 输出格式与 serializeAll 相同，为一个 JSON 数组
+ */
+public class BookJsonWriter implements Closeable {
+    private final JsonGenerator generator;
+    private final ObjectMapper mapper;
+    private int count = 0;
+
+    BookJsonWriter(File file, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        this.generator = mapper.getFactory().createGenerator(file, JsonEncoding.UTF8);
+        generator.writeStartArray();
+    }
+
+    /**
+     * 追加一个 Book，可由多个线程调用
+     * @param book 要写入的 Book
+     */
+    public synchronized void write(Book book) throws IOException {
+        mapper.writeValue(generator, book);
+        count++;
+    }
+
+    /**
+     * @return 已写入的 Book 数
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * 结束 JSON 数组并关闭文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
@@ -53,4 +53,44 @@ public class BookSerializer {
     public static List<Book> deserializeAll(File file) throws IOException {
         return OBJECT_MAPPER.readValue(file, new TypeReference<List<Book>>() {});
     }
+
+    /**
+     * 将 Book 序列化为单行 JSON，用于 JSON Lines 格式的检查点文件
+     * @param book
+     * @return 不含换行符的 JSON 字符串
+     * @throws IOException
+     */
+    public static String toJson(Book book) throws IOException {
+        return OBJECT_MAPPER.writeValueAsString(book);
+    }
+
+    /**
+     * 从单行 JSON 反序列化 Book
+     * @param json
+     * @return 反序列化后的 Book
+     * @throws IOException
+     */
+    public static Book fromJson(String json) throws IOException {
+        return OBJECT_MAPPER.readValue(json, Book.class);
+    }
+
+    /**
+     * 打开流式读取器，逐个读取文件中的 Book，适用于大文件
+     * @param file JSON 数组文件
+     * @return 流式读取器，使用完毕后需关闭
+     * @throws IOException
+     */
+    public static BookJsonReader openReader(File file) throws IOException {
+        return new BookJsonReader(file, OBJECT_MAPPER);
+    }
+
+    /**
+     * 打开流式写入器，逐个写入 Book，适用于边爬取边写入
+     * @param file 输出文件
+     * @return 流式写入器，使用完毕后需关闭
+     * @throws IOException
+     */
+    public static BookJsonWriter openWriter(File file) throws IOException {
+        return new BookJsonWriter(file, OBJECT_MAPPER);
+    }
 }
@@ -0,0 +1,61 @@
+package com.booksearch.util;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+
+import java.util.Locale;
+
+/**
+ * 索引与搜索共用的排序定义，字段排序都以 ISBN 作为最后的排序键
+ */
+public class BookSorts {
+    public static final SortField ISBN = new SortField("isbn", SortField.Type.STRING);
+    public static final Sort RELEVANCE = Sort.RELEVANCE;
+    // 按相关度分页时使用的等价排序，带上 ISBN 以便游标记录唯一位置
+    public static final Sort RELEVANCE_PAGED = new Sort(SortField.FIELD_SCORE, ISBN);
+    public static final Sort PRICE_ASC;
+    public static final Sort PRICE_DESC;
+    public static final Sort NEWEST;
+
+    static {
+        // 没有售价的书籍在两种价格排序下都排在最后
+        SortField priceAsc = new SortField("salePrice", SortField.Type.DOUBLE);
+        priceAsc.setMissingValue(Double.MAX_VALUE);
+        PRICE_ASC = new Sort(priceAsc, ISBN);
+
+        SortField priceDesc = new SortField("salePrice", SortField.Type.DOUBLE, true);
+        priceDesc.setMissingValue(-Double.MAX_VALUE);
+        PRICE_DESC = new Sort(priceDesc, ISBN);
+
+        SortField newest = new SortField("publicationDate", SortField.Type.LONG, true);
+        newest.setMissingValue(Long.MIN_VALUE);
+        NEWEST = new Sort(newest, ISBN);
+    }
+
+    /**
+     * 返回分页时实际使用的排序：相关度排序替换为 RELEVANCE_PAGED，其余不变
+     * @param sort 请求的排序
+     * @return 分页排序
+     */
+    public static Sort forPaging(Sort sort) {
+        return sort == null || sort.equals(RELEVANCE) ? RELEVANCE_PAGED : sort;
+    }
+
+    /**
+     * 按名称查找排序方式
+     * @param name relevance / price / price_desc / newest
+     * @return 对应的 Sort，名称为空时返回 RELEVANCE
+     */
+    public static Sort byName(String name) {
+        if (name == null || name.isBlank()) {
+            return RELEVANCE;
+        }
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "relevance" -> RELEVANCE;
+            case "price" -> PRICE_ASC;
+            case "price_desc" -> PRICE_DESC;
+            case "newest" -> NEWEST;
+            default -> throw new IllegalArgumentException("未知的排序方式：" + name);
+        };
+    }
+}
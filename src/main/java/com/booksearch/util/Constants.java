@@ -1,13 +1,61 @@
 package com.booksearch.util;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class Constants {
     public static final int MAX_PAGES = 10;
     public static final String FILE_PATH = "D:\\Files\\Java\\hw\\hw1\\SearchEngine\\data\\books.json";
     public static final String INDEX_FILE_DIR = "D:\\Files\\Java\\hw\\hw1\\SearchEngine\\data\\index";
+    public static final String BOOK_STORE_DIR = "D:\\Files\\Java\\hw\\hw1\\SearchEngine\\data\\store";
+    public static final int BOOK_STORE_COMPRESS_MIN_BYTES = 256; // 长文本超过该字节数时压缩存储
     public static final int MAX_SEARCH_RESULTS = 20;
+    public static final long SEARCH_MAX_STALENESS_MS = 1000;
+    public static final int SEARCH_RESULT_CACHE_SIZE = 1024;
+    public static final int SEARCH_PARALLEL_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int SEARCH_MAX_DOCS_PER_SLICE = 250_000;
+    public static final int SEARCH_MAX_SEGMENTS_PER_SLICE = 5;
+    public static final double SEARCH_EXPENSIVE_QUERY_RATIO = 0.05;
+    public static final long SEARCH_SLOW_QUERY_MS = 200;
+    public static final int SEARCH_WARMUP_ROUNDS = 3;
+    public static final List<String> SEARCH_WARMUP_QUERIES = List.of("小说", "历史", "计算机 编程", "经济管理", "儿童绘本", "哲学");
+
+    // 查询代价限制
+    public static final long SEARCH_TIMEOUT_MS = 500;        // 单个查询的检索时间预算，超时返回已收集的部分结果
+    public static final int SEARCH_MAX_CLAUSES = 256;        // 解析后查询的叶子子句上限，多字段检索时按展开后的数量计
+    public static final int SEARCH_MAX_FUZZY_EDITS = 1;      // 模糊查询允许的最大编辑距离，超出时降低
+    public static final int SEARCH_FUZZY_PREFIX_LENGTH = 1;  // 模糊查询要求精确匹配的前缀长度，避免遍历整个词典
+    public static final int SEARCH_MAX_EXPANSIONS = 64;      // 通配符、前缀、模糊查询最多展开的词项数
+
+    // 搜索服务参数
+    public static final int SERVER_PORT = 8080;
+    public static final int SERVER_BACKLOG = 4096;
+    public static final int SERVER_SEARCH_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // 爬虫抓取参数
+    public static final String SEARCH_URL = "https://search.xhsd.com/search?frontCategoryId=";
+    public static final int CRAWL_MAX_CONCURRENCY = 64;
+    public static final int CRAWL_MAX_PER_HOST = 8;
+    public static final double CRAWL_RATE_PER_SECOND = 20.0;
+    public static final int CRAWL_MAX_RETRIES = 3;
+    public static final int CRAWL_TIMEOUT_MS = 10000;
+    public static final long CRAWL_BACKOFF_MS = 500;
+    public static final int CRAWL_EXTRACT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int CRAWL_PIPELINE_QUEUE_CAPACITY = 256;
+    public static final String CRAWL_STATE_DIR = "D:\\Files\\Java\\hw\\hw1\\SearchEngine\\data\\crawl";
+    public static final int CRAWL_CHECKPOINT_EVERY = 100;          // 每完成多少本刷新一次检查点
+    public static final long CRAWL_CHECKPOINT_INTERVAL_MS = 5000;  // 距上次刷新超过该时间也刷新
+    public static final String CRAWL_CACHE_DIR = "D:\\Files\\Java\\hw\\hw1\\SearchEngine\\data\\http-cache";
+    public static final long CRAWL_CACHE_TTL_MS = 24 * 60 * 60 * 1000L;  // 缓存页面在该时间内不访问网络
+
+    // 索引构建参数
+    public static final int INDEX_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int INDEX_QUEUE_CAPACITY = 1024;
+    public static final double INDEX_RAM_BUFFER_MB = 256.0;
+    public static final double INDEX_SEGMENTS_PER_TIER = 10.0;
+    public static final int INDEX_MAX_MERGE_AT_ONCE = 10;
+    public static final double INDEX_MAX_MERGED_SEGMENT_MB = 5 * 1024.0;
     public static final Map<String, String> CATEGORIES = new LinkedHashMap<>();
     static {
         CATEGORIES.put("人文社科", "34");
@@ -28,4 +28,14 @@ public class PrintProgressBar {
             System.out.println();
         }
     }
+
+    /**
+     * 总数未知时打印已完成数量
+     * @param completed 已完成项目数
+     */
+    public static void printProgressCount(int completed) {
+        PrintStream out = System.out;
+        out.print("\r已完成 " + completed + " 项");
+        out.flush();
+    }
 }
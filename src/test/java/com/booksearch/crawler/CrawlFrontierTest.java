@@ -0,0 +1,81 @@
+package com.booksearch.crawler;
+
+import com.booksearch.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlFrontierTest {
+    private static final String A = "https://book.example.com/item/a";
+    private static final String B = "https://book.example.com/item/b";
+    private static final String C = "https://book.example.com/item/c";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void setUrlsCanonicalizesAndDeduplicates() throws IOException {
+        try (CrawlFrontier frontier = new CrawlFrontier(dir, false, 100, 60_000)) {
+            int size = frontier.setUrls(List.of(A, "//BOOK.example.com/item/a#top", A + "?utm_source=list", B));
+            assertEquals(2, size);
+            assertEquals(List.of(A, B), frontier.pending());
+        }
+    }
+
+    @Test
+    void resumeIgnoresTornLastLineAndRetriesItsUrl() throws IOException {
+        try (CrawlFrontier frontier = new CrawlFrontier(dir, false, 100, 60_000)) {
+            frontier.setUrls(List.of(A, B, C));
+            frontier.complete(A, book("isbn-a"));
+            frontier.complete(B, book("isbn-b"));
+        }
+        // 模拟写到一半时进程中断
+        Files.writeString(dir.resolve("done.jsonl"), C + "\t{\"isbn\":\"isbn-", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (CrawlFrontier frontier = new CrawlFrontier(dir, true, 100, 60_000)) {
+            assertTrue(frontier.hasUrls());
+            assertEquals(List.of(C), frontier.pending());
+            frontier.complete(C, book("isbn-c"));
+        }
+
+        try (CrawlFrontier frontier = new CrawlFrontier(dir, true, 100, 60_000)) {
+            assertTrue(frontier.pending().isEmpty());
+            assertEquals(List.of("isbn-a", "isbn-b", "isbn-c"), isbns(frontier));
+        }
+    }
+
+    @Test
+    void freshStartClearsPreviousState() throws IOException {
+        try (CrawlFrontier frontier = new CrawlFrontier(dir, false, 100, 60_000)) {
+            frontier.setUrls(List.of(A));
+            frontier.complete(A, book("isbn-a"));
+        }
+        try (CrawlFrontier frontier = new CrawlFrontier(dir, false, 100, 60_000)) {
+            assertFalse(frontier.hasUrls());
+            assertTrue(isbns(frontier).isEmpty());
+        }
+    }
+
+    private static Book book(String isbn) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        return book;
+    }
+
+    private static List<String> isbns(CrawlFrontier frontier) throws IOException {
+        List<String> isbns = new ArrayList<>();
+        frontier.forEachBook(book -> isbns.add(book.getIsbn()));
+        return isbns;
+    }
+}
@@ -0,0 +1,154 @@
+package com.booksearch.crawler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 以本地 HTTP 服务器模拟限流与故障，验证重试、退避与单主机并发限制
+ */
+class FetchEngineTest {
+    private static final long BACKOFF_MS = 20;
+
+    private HttpServer server;
+    private String baseUrl;
+    // 路径 -> 依次返回的状态码，用完后返回 200
+    private final Map<String, List<Integer>> scripts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long handlerDelayMs = 0;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int attempt = requests.computeIfAbsent(path, _ -> new AtomicInteger()).getAndIncrement();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (handlerDelayMs > 0) {
+                Thread.sleep(handlerDelayMs);
+            }
+            List<Integer> script = scripts.getOrDefault(path, List.of());
+            int status = attempt < script.size() ? script.get(attempt) : 200;
+            byte[] body = ("<html><body><p>" + path + "</p></body></html>").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private FetchEngine engine(int maxPerHost, int maxRetries) {
+        return new FetchEngine(16, maxPerHost, 0, maxRetries, 2000, BACKOFF_MS);
+    }
+
+    private int requestCount(String path) {
+        AtomicInteger count = requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    void retriesServerErrorsWithBackoff() {
+        scripts.put("/flaky", List.of(503, 500));
+        long start = System.nanoTime();
+        Document doc = engine(4, 3).fetch(baseUrl + "/flaky");
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(doc);
+        assertEquals("/flaky", doc.selectFirst("p").text());
+        assertEquals(3, requestCount("/flaky"));
+        // 两次重试前分别至少等待 BACKOFF_MS 与 2 * BACKOFF_MS
+        assertTrue(elapsedMs >= 3 * BACKOFF_MS, "退避时间不足: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void retriesTooManyRequests() {
+        scripts.put("/limited", List.of(429));
+        assertNotNull(engine(4, 3).fetch(baseUrl + "/limited"));
+        assertEquals(2, requestCount("/limited"));
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        scripts.put("/down", List.of(500, 500, 500, 500, 500));
+        assertNull(engine(4, 2).fetch(baseUrl + "/down"));
+        assertEquals(3, requestCount("/down"));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        scripts.put("/missing", List.of(404, 404));
+        assertNull(engine(4, 3).fetch(baseUrl + "/missing"));
+        assertEquals(1, requestCount("/missing"));
+    }
+
+    @Test
+    void limitsConcurrentRequestsPerHost() {
+        handlerDelayMs = 50;
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            urls.add(baseUrl + "/page" + i);
+        }
+        FetchEngine shared = engine(2, 0);
+        AtomicInteger fetched = new AtomicInteger();
+        shared.forEach(urls, url -> {
+            if (shared.fetch(url) != null) {
+                fetched.incrementAndGet();
+            }
+        });
+        assertEquals(12, fetched.get());
+        assertTrue(maxInFlight.get() <= 2, "单主机并发超过上限: " + maxInFlight.get());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void forEachPropagatesTaskFailure() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            urls.add(baseUrl + "/item" + i);
+        }
+        FetchEngine engine = engine(4, 0);
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () -> engine.forEach(urls, url -> {
+            if (url.endsWith("/item3")) {
+                throw new UncheckedIOException(new IOException("写入失败"));
+            }
+        }));
+        assertEquals("写入失败", thrown.getCause().getMessage());
+    }
+}
@@ -0,0 +1,32 @@
+package com.booksearch.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void normalizesSchemeHostPortAndFragment() {
+        assertEquals("https://book.example.com/item/1", UrlCanonicalizer.canonicalize("//Book.Example.COM/item/1"));
+        assertEquals("https://book.example.com/item/1", UrlCanonicalizer.canonicalize(" HTTPS://book.example.com:443/item/1#reviews "));
+        assertEquals("http://book.example.com/", UrlCanonicalizer.canonicalize("http://book.example.com:80"));
+        assertEquals("http://book.example.com:8080/item/1", UrlCanonicalizer.canonicalize("http://book.example.com:8080/item/1"));
+    }
+
+    @Test
+    void dropsTrackingParamsAndSortsTheRest() {
+        assertEquals("https://book.example.com/item?a=1&b=2",
+                UrlCanonicalizer.canonicalize("https://book.example.com/item?b=2&utm_source=x&SPM=1.2&a=1&&gclid=z"));
+        assertEquals("https://book.example.com/item", UrlCanonicalizer.canonicalize("https://book.example.com/item?utm_medium=list"));
+    }
+
+    @Test
+    void keepsPathCaseAndUnparsableInput() {
+        assertNotEquals(UrlCanonicalizer.canonicalize("https://book.example.com/Item"),
+                UrlCanonicalizer.canonicalize("https://book.example.com/item"));
+        assertEquals("not a url", UrlCanonicalizer.canonicalize(" not a url "));
+        assertEquals("/relative/path", UrlCanonicalizer.canonicalize("/relative/path"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.booksearch.indexer;
+
+import com.booksearch.model.Book;
+import com.booksearch.util.BookFields;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class BookIndexerTest {
+
+    @Test
+    void incrementalRunSkipsUnchangedReplacesChangedAndDeletesMissing() throws IOException {
+        try (Directory dir = new ByteBuffersDirectory()) {
+            index(dir, false, List.of(book("isbn-a", "三体"), book("isbn-b", "活着"), book("isbn-c", "围城")));
+
+            BookIndexer indexer = index(dir, true, List.of(book("isbn-a", "三体"), book("isbn-b", "活着（修订版）"), book("isbn-d", "边城")));
+            assertEquals("新增 1，更新 1，未变化 1，重复 0，删除 1", indexer.getStats());
+
+            Map<String, Document> docs = liveDocs(dir);
+            assertEquals(Map.of("isbn-a", "三体", "isbn-b", "活着（修订版）", "isbn-d", "边城"), titles(docs));
+        }
+    }
+
+    @Test
+    void duplicateIsbnInOneRunKeepsLastContent() throws IOException {
+        try (Directory dir = new ByteBuffersDirectory()) {
+            BookIndexer indexer = index(dir, false, List.of(book("isbn-a", "旧书名"), book("isbn-a", "新书名")));
+            assertEquals("新增 1，更新 0，未变化 0，重复 1，删除 0", indexer.getStats());
+            assertEquals(Map.of("isbn-a", "新书名"), titles(liveDocs(dir)));
+        }
+    }
+
+    @Test
+    void allFieldVersionBumpRebuildsUnchangedBooks() throws IOException {
+        Book book = book("isbn-a", "三体");
+        assertNotEquals(BookIndexer.contentHash(book, BookFields.ALL_FIELD_VERSION - 1), BookIndexer.contentHash(book));
+
+        try (Directory dir = new ByteBuffersDirectory()) {
+            // 模拟上一个合并字段版本写入的索引
+            IndexSchema schema = IndexSchema.defaults();
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+                Document doc = new Document();
+                schema.addField(doc, "isbn", book.getIsbn());
+                schema.addField(doc, "contentHash", BookIndexer.contentHash(book, BookFields.ALL_FIELD_VERSION - 1));
+                writer.addDocument(doc);
+            }
+
+            BookIndexer indexer = index(dir, true, List.of(book));
+            assertEquals("新增 0，更新 1，未变化 0，重复 0，删除 0", indexer.getStats());
+            assertEquals(BookIndexer.contentHash(book), liveDocs(dir).get("isbn-a").get("contentHash"));
+        }
+    }
+
+    private static BookIndexer index(Directory dir, boolean incremental, List<Book> books) throws IOException {
+        IndexerConfig config = new IndexerConfig();
+        config.setIncremental(incremental);
+        BookIndexer indexer = new BookIndexer(config, dir);
+        for (Book book : books) {
+            indexer.indexBook(book);
+        }
+        indexer.deleteMissing();
+        indexer.close();
+        return indexer;
+    }
+
+    private static Book book(String isbn, String title) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setPublicationDate(LocalDate.of(2020, 1, 1));
+        return book;
+    }
+
+    private static Map<String, Document> liveDocs(Directory dir) throws IOException {
+        Map<String, Document> docs = new HashMap<>();
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext context : reader.leaves()) {
+                Bits liveDocs = context.reader().getLiveDocs();
+                StoredFields storedFields = context.reader().storedFields();
+                for (int i = 0; i < context.reader().maxDoc(); i++) {
+                    if (liveDocs == null || liveDocs.get(i)) {
+                        Document doc = storedFields.document(i);
+                        docs.put(doc.get("isbn"), doc);
+                    }
+                }
+            }
+        }
+        return docs;
+    }
+
+    private static Map<String, String> titles(Map<String, Document> docs) {
+        Map<String, String> titles = new HashMap<>();
+        docs.forEach((isbn, doc) -> titles.put(isbn, doc.get("title")));
+        return titles;
+    }
+}
@@ -0,0 +1,58 @@
+package com.booksearch.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+    // 类注释给出的相对误差上限 1/SUB_BUCKETS
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 32;
+
+    @Test
+    void percentilesStayWithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500.0, histogram.getMean(), 1e-6);
+        assertWithin(50_000_000, histogram.getPercentile(0.50));
+        assertWithin(99_000_000, histogram.getPercentile(0.99));
+        assertWithin(99_900_000, histogram.getPercentile(0.999));
+        assertEquals(100_000_000, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    void bucketUpperBoundCoversValue() {
+        for (long value = 0; value < 1 << 20; value++) {
+            assertWithin(value, Histogram.upperBoundOf(Histogram.bucketOf(value)));
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.upperBoundOf(Histogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void smallValuesAreExactAndNegativeCountsAsZero() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(0, histogram.getPercentile(0.1));
+        assertEquals(3, histogram.getPercentile(0.5));
+        assertEquals(7, histogram.getPercentile(0.99));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    // 估计值不低于真实值，且高出的部分不超过相对误差
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected * MAX_RELATIVE_ERROR,
+                "估计值 " + actual + " 超出 " + expected + " 的误差范围");
+    }
+}
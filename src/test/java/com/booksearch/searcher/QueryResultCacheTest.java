@@ -0,0 +1,26 @@
+package com.booksearch.searcher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class QueryResultCacheTest {
+
+    @Test
+    void operatorCaseProducesDifferentKeys() {
+        // QueryParser 只把大写的 AND 当作运算符，小写的 and 是普通词项
+        assertNotEquals(QueryResultCache.key("x AND y", 10), QueryResultCache.key("x and y", 10));
+        assertNotEquals(new SearchRequest("x AND y", 10).cacheKey(), new SearchRequest("x and y", 10).cacheKey());
+    }
+
+    @Test
+    void whitespaceIsNormalized() {
+        assertEquals(QueryResultCache.key("x AND y", 10), QueryResultCache.key("  x   AND\ty ", 10));
+    }
+
+    @Test
+    void limitIsPartOfKey() {
+        assertNotEquals(QueryResultCache.key("小说", 10), QueryResultCache.key("小说", 20));
+    }
+}
@@ -0,0 +1,107 @@
+package com.booksearch.searcher;
+
+import com.booksearch.util.BookSorts;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchCursorTest {
+
+    @Test
+    void roundTripKeepsSortValuesAndDoc() {
+        FieldDoc last = new FieldDoc(7, Float.NaN, new Object[]{12.5, new BytesRef("978-1")});
+        String cursor = SearchCursor.encode(last, BookSorts.PRICE_ASC, 3);
+
+        FieldDoc decoded = SearchCursor.decode(cursor, BookSorts.PRICE_ASC, 3, 100);
+        assertEquals(7, decoded.doc);
+        assertArrayEquals(last.fields, decoded.fields);
+    }
+
+    @Test
+    void staleGenerationUsesLastDoc() {
+        FieldDoc last = new FieldDoc(7, Float.NaN, new Object[]{12.5, new BytesRef("978-1")});
+        String cursor = SearchCursor.encode(last, BookSorts.PRICE_ASC, 3);
+
+        assertEquals(99, SearchCursor.decode(cursor, BookSorts.PRICE_ASC, 4, 100).doc);
+    }
+
+    @Test
+    void rejectsOtherSort() {
+        FieldDoc last = new FieldDoc(7, Float.NaN, new Object[]{12.5, new BytesRef("978-1")});
+        String cursor = SearchCursor.encode(last, BookSorts.PRICE_ASC, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(cursor, BookSorts.NEWEST, 3, 100));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("不是游标", BookSorts.PRICE_ASC, 3, 100));
+    }
+
+    @Test
+    void pagingAcrossRefreshDoesNotRepeatLastHit() throws IOException {
+        Sort sort = BookSorts.PRICE_ASC;
+        try (ByteBuffersDirectory dir = new ByteBuffersDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 6; i++) {
+                writer.addDocument(book("isbn-" + i, 10 + i));
+            }
+            writer.commit();
+
+            String cursor;
+            List<String> seen = new ArrayList<>();
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                TopDocs first = searcher.searchAfter(null, new MatchAllDocsQuery(), 3, sort);
+                for (ScoreDoc hit : first.scoreDocs) {
+                    seen.add(isbn((FieldDoc) hit));
+                }
+                cursor = SearchCursor.encode((FieldDoc) first.scoreDocs[2], sort, reader.getVersion());
+            }
+
+            // 新提交使读取器版本变化，游标中的文档号不再使用
+            writer.addDocument(book("isbn-new", 1));
+            writer.commit();
+
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                FieldDoc after = SearchCursor.decode(cursor, sort, reader.getVersion(), reader.maxDoc());
+                TopDocs second = searcher.searchAfter(after, new MatchAllDocsQuery(), 3, sort);
+                List<String> next = new ArrayList<>();
+                for (ScoreDoc hit : second.scoreDocs) {
+                    next.add(isbn((FieldDoc) hit));
+                }
+                assertNotEquals(seen.get(2), next.get(0));
+                assertEquals(List.of("isbn-3", "isbn-4", "isbn-5"), next);
+            }
+        }
+    }
+
+    private static Document book(String isbn, double price) {
+        Document doc = new Document();
+        doc.add(new SortedDocValuesField("isbn", new BytesRef(isbn)));
+        doc.add(new DoubleDocValuesField("salePrice", price));
+        return doc;
+    }
+
+    private static String isbn(FieldDoc hit) {
+        return ((BytesRef) hit.fields[1]).utf8ToString();
+    }
+}
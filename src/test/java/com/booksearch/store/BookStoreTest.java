@@ -0,0 +1,116 @@
+package com.booksearch.store;
+
+import com.booksearch.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookStoreTest {
+    private static final String LONG_TEXT = "这是一段会被重复很多次的内容简介。".repeat(500);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsAllFieldsAndNulls() throws IOException {
+        Book full = book("isbn-1", "三体");
+        full.setPublicationDate(LocalDate.of(2008, 1, 1));
+        full.setSalePrice(23.5);
+        full.setOriginalPrice(36.0);
+        full.setContents(LONG_TEXT);
+        full.setBookDescription("短简介");
+        Book sparse = book("isbn-2", null);
+        sparse.setPublicationDate(null);
+        sparse.setContents(null);
+        sparse.setEditorRecommendation(null);
+        write(64, 42, List.of(full, sparse));
+
+        try (BookStore store = BookStore.open(dir)) {
+            assertEquals(2, store.size());
+            assertEquals(42, store.getIndexVersion());
+            assertEquals(full, store.get("isbn-1"));
+            assertEquals(sparse, store.get("isbn-2"));
+            assertNull(store.get("isbn-3"));
+
+            Book summary = store.getSummary("isbn-1");
+            assertEquals("三体", summary.getTitle());
+            assertEquals("<UNK>", summary.getContents());
+        }
+    }
+
+    @Test
+    void longTextIsCompressedOnlyAboveThreshold() throws IOException {
+        Book book = book("isbn-1", "三体");
+        book.setContents(LONG_TEXT);
+        int rawBytes = LONG_TEXT.getBytes(StandardCharsets.UTF_8).length;
+
+        write(64, BookStoreFormat.NO_INDEX_VERSION, List.of(book));
+        assertTrue(Files.size(dir.resolve(BookStoreFormat.DATA_FILE)) < rawBytes);
+        try (BookStore store = BookStore.open(dir)) {
+            assertEquals(LONG_TEXT, store.get("isbn-1").getContents());
+        }
+
+        write(Integer.MAX_VALUE, BookStoreFormat.NO_INDEX_VERSION, List.of(book));
+        assertTrue(Files.size(dir.resolve(BookStoreFormat.DATA_FILE)) > rawBytes);
+        try (BookStore store = BookStore.open(dir)) {
+            assertEquals(LONG_TEXT, store.get("isbn-1").getContents());
+        }
+    }
+
+    @Test
+    void duplicateIsbnKeepsLastWrite() throws IOException {
+        write(64, BookStoreFormat.NO_INDEX_VERSION, List.of(book("isbn-1", "旧书名"), book("isbn-0", "其他"), book("isbn-1", "新书名")));
+
+        try (BookStore store = BookStore.open(dir)) {
+            assertEquals(2, store.size());
+            assertEquals("新书名", store.get("isbn-1").getTitle());
+            assertEquals("其他", store.get("isbn-0").getTitle());
+        }
+    }
+
+    @Test
+    void rejectsDataFileOfOtherSize() throws IOException {
+        write(64, BookStoreFormat.NO_INDEX_VERSION, List.of(book("isbn-1", "三体")));
+        Files.write(dir.resolve(BookStoreFormat.DATA_FILE), new byte[]{0}, StandardOpenOption.APPEND);
+
+        assertThrows(IOException.class, () -> BookStore.open(dir));
+    }
+
+    @Test
+    void readAfterCloseFails() throws IOException {
+        write(64, BookStoreFormat.NO_INDEX_VERSION, List.of(book("isbn-1", "三体")));
+        BookStore store = BookStore.open(dir);
+        store.close();
+        store.close();
+
+        assertThrows(IllegalStateException.class, () -> store.get("isbn-1"));
+    }
+
+    private void write(int compressMinBytes, long indexVersion, List<Book> books) throws IOException {
+        try (BookStoreWriter writer = new BookStoreWriter(dir, compressMinBytes, indexVersion)) {
+            for (Book book : books) {
+                writer.write(book);
+            }
+        }
+    }
+
+    private static Book book(String isbn, String title) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setPublicationDate(LocalDate.of(2020, 1, 1));
+        return book;
+    }
+}